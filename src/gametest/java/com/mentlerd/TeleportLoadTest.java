@@ -0,0 +1,792 @@
+package com.mentlerd;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.mojang.authlib.GameProfile;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.fabricmc.fabric.api.entity.FakePlayer;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.gametest.v1.GameTest;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.block.Block;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.LecternBlock;
+import net.minecraft.block.entity.ChestBlockEntity;
+import net.minecraft.block.entity.LecternBlockEntity;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.decoration.ArmorStandEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.state.property.Properties;
+import net.minecraft.test.TestContext;
+import net.minecraft.text.Text;
+import net.minecraft.util.ActionResult;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+
+// Load test of the asynchronous teleport pipeline, and the acceptance gate for releases.
+//
+// Builds chains of books far away from the test structure, breaks some of their destinations, then
+//  lets simulated players click through them while chunk loads are slowed down artificially. Reports
+//  teleports per second, click to arrival latency and the tick time impact, both to the log and to
+//  telebooks-loadtest.json in the game directory.
+//
+// Parameters are system properties, for example -Dtelebooks.loadtest.players=2000:
+//  chains, chain_size       shape of the telebook network (8, 16)
+//  players, clicks          simulated players, and teleports each of them attempts (1000, 3)
+//  broken_percent           share of destinations broken after registration (10)
+//  latency_ms               added to every chunk load requested by a teleport (50)
+//  baseline_ticks           ticks measured before the load starts (100)
+//  max_p99_ms               fails the test when click to arrival p99 exceeds it, 0 disables (0)
+//
+// carryCargoBay measures block carrying on its own, moving a filled 5x5x5 bay back and forth
+//  between two books, and writes telebooks-cargo.json:
+//  cargo_moves              moves measured (50)
+//  max_cargo_ms             fails the test when the p99 of a move exceeds it, 0 disables (0)
+//
+// cargoLandsInPlace checks where carried blocks end up, and that obstructed cargo and the signs
+//  naming a book stay behind.
+//
+// moveEntityCrowd measures the entity side of a teleport, moving a crowd of armor stands back and
+//  forth between two books, both copied as other worlds do and in place, and writes
+//  telebooks-entities.json:
+//  crowd_entities           entities standing on the book (200)
+//  crowd_moves              moves measured in each mode (20)
+public class TeleportLoadTest {
+	record Parameters(int chains, int chainSize, int players, int clicks, int brokenPercent, int latencyMillis, int baselineTicks, double maxP99Millis) {
+		static int property(String name, int fallback) {
+			return Integer.getInteger("telebooks.loadtest." + name, fallback);
+		}
+
+		static Parameters fromSystemProperties() {
+			return new Parameters(
+				property("chains", 8),
+				property("chain_size", 16),
+				property("players", 1000),
+				property("clicks", 3),
+				property("broken_percent", 10),
+				property("latency_ms", 50),
+				property("baseline_ticks", 100),
+				Double.parseDouble(System.getProperty("telebooks.loadtest.max_p99_ms", "0"))
+			);
+		}
+	}
+
+	// Books are spaced six chunks apart, so every destination needs chunk loads of its own
+	static final int BOOK_SPACING = 96;
+	static final int ORIGIN = 20000;
+	static final int BOOK_Y = 160;
+
+	static final Direction[] HORIZONTALS = { Direction.NORTH, Direction.EAST, Direction.SOUTH, Direction.WEST };
+
+	// Pattern cells are picked from here - never the frame block, which corners may not be made of
+	static final List<Block> PATTERN_BLOCKS = List.of(
+		Blocks.STONE, Blocks.GRANITE, Blocks.DIORITE, Blocks.ANDESITE,
+		Blocks.DIRT, Blocks.COBBLESTONE, Blocks.OAK_PLANKS, Blocks.SPRUCE_PLANKS,
+		Blocks.GOLD_BLOCK, Blocks.IRON_BLOCK, Blocks.DIAMOND_BLOCK, Blocks.EMERALD_BLOCK
+	);
+
+	static final int MAX_TICKS = 72000;
+
+	// Added to every chunk load requested by a teleport, see ChunkLoadLatencyMixin
+	public static volatile int chunkLatencyMillis = 0;
+
+	static LoadRun current;
+
+	static {
+		ServerTickEvents.START_SERVER_TICK.register(server -> {
+			if (current != null) {
+				current.guarded(current::onTickStart);
+			}
+		});
+		ServerTickEvents.END_SERVER_TICK.register(server -> {
+			if (current != null) {
+				current.guarded(current::onTickEnd);
+			}
+		});
+		ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
+			if (current != null) {
+				current.abort("Server stopped");
+			}
+		});
+	}
+
+	@GameTest(maxTicks = MAX_TICKS)
+	public void teleportUnderLoad(TestContext context) {
+		var run = new LoadRun(context.getWorld(), Parameters.fromSystemProperties());
+
+		run.build();
+		current = run;
+
+		context.succeedWhen(() -> {
+			context.assertTrue(run.isFinished(), Text.literal("Load test still running"));
+			context.assertTrue(run.getGateFailure() == null, Text.literal(String.valueOf(run.getGateFailure())));
+		});
+	}
+
+	// Cut, paste and clear of the bay, the work a teleport carrying blocks adds to its tick
+	@GameTest(maxTicks = 200)
+	public void carryCargoBay(TestContext context) {
+		var world = context.getWorld();
+
+		int moves = Parameters.property("cargo_moves", 50);
+		double maxMillis = Double.parseDouble(System.getProperty("telebooks.loadtest.max_cargo_ms", "0"));
+
+		var originalConfig = Telebooks.CONFIG;
+		Telebooks.CONFIG = withCargo(originalConfig);
+
+		var samples = new LongArrayList();
+		int carried = 0;
+
+		try {
+			BlockPos[] centers = {
+				new BlockPos(ORIGIN - 2 * BOOK_SPACING, BOOK_Y, ORIGIN),
+				new BlockPos(ORIGIN - 3 * BOOK_SPACING, BOOK_Y, ORIGIN)
+			};
+
+			// Solid blocks, with a chest in every corner so block entities are part of the work
+			var bay = Telebooks.TeleportVolume.getCargoBox(centers[0]);
+			for (var pos : BlockPos.iterate(bay.getMinX(), bay.getMinY(), bay.getMinZ(), bay.getMaxX(), bay.getMaxY(), bay.getMaxZ())) {
+				boolean corner = (pos.getX() == bay.getMinX() || pos.getX() == bay.getMaxX()) && (pos.getZ() == bay.getMinZ() || pos.getZ() == bay.getMaxZ());
+				var block = corner ? Blocks.CHEST : PATTERN_BLOCKS.get(Math.floorMod(pos.getX() + pos.getY() + pos.getZ(), PATTERN_BLOCKS.size()));
+
+				world.setBlockState(pos, block.getDefaultState());
+			}
+
+			for (int move = 0; move < moves; move++) {
+				var from = centers[move % 2];
+				var to = centers[(move + 1) % 2];
+
+				var volume = new Telebooks.TeleportVolume(true);
+
+				long start = System.nanoTime();
+				volume.cutBlocks(world, from, Direction.NORTH);
+				volume.pasteBlocks(world, to, Direction.NORTH);
+				volume.clearBlocks();
+				samples.add(System.nanoTime() - start);
+
+				carried = volume.getBlockCount();
+			}
+		} finally {
+			Telebooks.CONFIG = originalConfig;
+		}
+
+		double p50 = LoadRun.percentileMillis(samples, 0.5);
+		double p99 = LoadRun.percentileMillis(samples, 0.99);
+
+		var json = new JsonObject();
+		json.addProperty("moves", samples.size());
+		json.addProperty("blocks", carried);
+		json.addProperty("move_mean_ms", LoadRun.meanMillis(samples));
+		json.addProperty("move_p50_ms", p50);
+		json.addProperty("move_p99_ms", p99);
+
+		Telebooks.LOGGER.info("Cargo test: {} blocks per move, p50 {}ms, p99 {}ms", carried, String.format("%.2f", p50), String.format("%.2f", p99));
+
+		try {
+			Files.writeString(FabricLoader.getInstance().getGameDir().resolve("telebooks-cargo.json"), new GsonBuilder().setPrettyPrinting().create().toJson(json));
+		} catch (IOException e) {
+			Telebooks.LOGGER.warn("Failed to write cargo test report", e);
+		}
+
+		context.assertTrue(carried == 125, Text.literal("Carried " + carried + " of 125 blocks"));
+		context.assertTrue(maxMillis <= 0 || p99 <= maxMillis, Text.literal(String.format("Cargo move p99 of %.2fms exceeds %.2fms", p99, maxMillis)));
+		context.complete();
+	}
+
+	// Carries a 5x5x5 bay, as the cargo tests expect
+	static Telebooks.Config withCargo(Telebooks.Config config) {
+		return new Telebooks.Config(
+			config.teleport(),
+			config.persistence(),
+			config.warmAnchors(),
+			config.picker(),
+			config.prewarm(),
+			config.sweeper(),
+			config.metrics(),
+			new Telebooks.Config.Cargo(true, 2, 5)
+		);
+	}
+
+	// Cargo lands turned along with the book, block entities included, and only when all of it fits.
+	//  Carried from a book facing north to one facing east, so everything turns clockwise.
+	@GameTest(maxTicks = 20)
+	public void cargoLandsInPlace(TestContext context) {
+		var world = context.getWorld();
+
+		var from = new BlockPos(ORIGIN - 6 * BOOK_SPACING, BOOK_Y, ORIGIN);
+		var to = new BlockPos(ORIGIN - 7 * BOOK_SPACING, BOOK_Y, ORIGIN);
+
+		var originalConfig = Telebooks.CONFIG;
+		Telebooks.CONFIG = withCargo(originalConfig);
+
+		try {
+			// To the right of the book, facing the way the book does
+			world.setBlockState(from.add(1, 1, 0), Blocks.FURNACE.getDefaultState().with(Properties.HORIZONTAL_FACING, Direction.NORTH));
+			// Behind and to the left, facing left
+			world.setBlockState(from.add(-1, 2, 1), Blocks.CHEST.getDefaultState().with(Properties.HORIZONTAL_FACING, Direction.WEST));
+			// In front, at the top of the bay
+			world.setBlockState(from.add(0, 5, -2), Blocks.GOLD_BLOCK.getDefaultState());
+			// Naming the book, which keeps its sign
+			world.setBlockState(from.add(2, 3, 2), Blocks.OAK_SIGN.getDefaultState());
+
+			if (world.getBlockEntity(from.add(-1, 2, 1)) instanceof ChestBlockEntity chest) {
+				chest.setStack(0, new ItemStack(Items.DIAMOND, 7));
+			}
+
+			// Where the gold block would land is taken, so nothing may move
+			world.setBlockState(to.add(2, 5, 0), Blocks.DIRT.getDefaultState());
+
+			var blocked = new Telebooks.TeleportVolume(false);
+			blocked.cutBlocks(world, from, Direction.NORTH);
+			blocked.pasteBlocks(world, to, Direction.EAST);
+			blocked.clearBlocks();
+
+			context.assertTrue(blocked.getBlockCount() == 0, Text.literal("Carried " + blocked.getBlockCount() + " blocks into an obstructed bay"));
+			context.assertTrue(world.getBlockState(from.add(1, 1, 0)).isOf(Blocks.FURNACE), Text.literal("Furnace left the source of an obstructed move"));
+			context.assertTrue(world.getBlockState(to.add(0, 1, 1)).isAir(), Text.literal("Furnace arrived at an obstructed destination"));
+
+			world.setBlockState(to.add(2, 5, 0), Blocks.AIR.getDefaultState());
+
+			var volume = new Telebooks.TeleportVolume(false);
+			volume.cutBlocks(world, from, Direction.NORTH);
+			volume.pasteBlocks(world, to, Direction.EAST);
+			volume.clearBlocks();
+
+			context.assertTrue(volume.getBlockCount() == 3, Text.literal("Carried " + volume.getBlockCount() + " of 3 blocks"));
+
+			var furnace = world.getBlockState(to.add(0, 1, 1));
+			context.assertTrue(furnace.isOf(Blocks.FURNACE) && furnace.get(Properties.HORIZONTAL_FACING) == Direction.EAST, Text.literal("Furnace landed as " + furnace));
+
+			var chestState = world.getBlockState(to.add(-1, 2, -1));
+			context.assertTrue(chestState.isOf(Blocks.CHEST) && chestState.get(Properties.HORIZONTAL_FACING) == Direction.NORTH, Text.literal("Chest landed as " + chestState));
+
+			var contents = world.getBlockEntity(to.add(-1, 2, -1)) instanceof ChestBlockEntity chest ? chest.getStack(0) : ItemStack.EMPTY;
+			context.assertTrue(contents.isOf(Items.DIAMOND) && contents.getCount() == 7, Text.literal("Chest arrived holding " + contents));
+
+			context.assertTrue(world.getBlockState(to.add(2, 5, 0)).isOf(Blocks.GOLD_BLOCK), Text.literal("Gold block missing from the top of the bay"));
+
+			for (var pos : List.of(from.add(1, 1, 0), from.add(-1, 2, 1), from.add(0, 5, -2))) {
+				context.assertTrue(world.getBlockState(pos).isAir(), Text.literal("Block left behind at " + pos.toShortString()));
+			}
+
+			context.assertTrue(world.getBlockState(from.add(2, 3, 2)).isOf(Blocks.OAK_SIGN), Text.literal("Sign naming the book was carried away"));
+			context.assertTrue(world.getBlockState(to.add(-2, 3, 2)).isAir(), Text.literal("Sign naming the book arrived at the destination"));
+		} finally {
+			// Block entities go first, so the chest does not spill
+			for (var center : List.of(from, to)) {
+				var bay = Telebooks.TeleportVolume.getCargoBox(center);
+
+				for (var pos : BlockPos.iterate(bay.getMinX(), bay.getMinY(), bay.getMinZ(), bay.getMaxX(), bay.getMaxY(), bay.getMaxZ())) {
+					world.removeBlockEntity(pos);
+					world.setBlockState(pos, Blocks.AIR.getDefaultState());
+				}
+			}
+
+			Telebooks.CONFIG = originalConfig;
+		}
+
+		context.complete();
+	}
+
+	// Cut, paste and the entity batches of a teleport, for entities copied to another world and for
+	//  entities moved in place
+	@GameTest(maxTicks = 200)
+	public void moveEntityCrowd(TestContext context) {
+		var world = context.getWorld();
+
+		int crowd = Parameters.property("crowd_entities", 200);
+		int moves = Parameters.property("crowd_moves", 20);
+
+		BlockPos[] centers = {
+			new BlockPos(ORIGIN - 4 * BOOK_SPACING, BOOK_Y, ORIGIN),
+			new BlockPos(ORIGIN - 5 * BOOK_SPACING, BOOK_Y, ORIGIN)
+		};
+
+		for (var center : centers) {
+			world.getChunk(center);
+		}
+
+		var start = centers[0].toCenterPos().add(0, 1, 0);
+		for (int index = 0; index < crowd; index++) {
+			world.spawnEntity(new ArmorStandEntity(world, start.getX(), start.getY(), start.getZ()));
+		}
+
+		var json = new JsonObject();
+		int landed = crowd;
+
+		for (boolean inPlace : new boolean[] { false, true }) {
+			var samples = new LongArrayList();
+
+			for (int move = 0; move < moves; move++) {
+				var from = centers[move % 2];
+				var to = centers[(move + 1) % 2];
+
+				var volume = new Telebooks.TeleportVolume(inPlace);
+
+				long startNanos = System.nanoTime();
+				volume.cut(world, from, Direction.NORTH);
+				volume.paste(world, to, Direction.NORTH);
+				volume.pasteEntities(Integer.MAX_VALUE);
+				volume.release();
+				samples.add(System.nanoTime() - startNanos);
+
+				landed = Math.min(landed, volume.takeMovedCount());
+			}
+
+			String mode = inPlace ? "in_place" : "copied";
+			double p99 = LoadRun.percentileMillis(samples, 0.99);
+
+			json.addProperty(mode + "_mean_ms", LoadRun.meanMillis(samples));
+			json.addProperty(mode + "_p50_ms", LoadRun.percentileMillis(samples, 0.5));
+			json.addProperty(mode + "_p99_ms", p99);
+
+			Telebooks.LOGGER.info("Entity test: {} entities {}, p99 {}ms", crowd, mode, String.format("%.2f", p99));
+		}
+
+		json.addProperty("entities", crowd);
+		json.addProperty("moves", moves);
+
+		// Whatever landed last is still standing on a book
+		int remaining = 0;
+		for (var center : centers) {
+			var area = new Telebooks.BookLocation(world.getRegistryKey(), center, Direction.NORTH, Optional.empty()).activeArea();
+
+			for (var entity : world.getEntitiesByClass(ArmorStandEntity.class, area, entity -> true)) {
+				entity.discard();
+				remaining++;
+			}
+		}
+
+		try {
+			Files.writeString(FabricLoader.getInstance().getGameDir().resolve("telebooks-entities.json"), new GsonBuilder().setPrettyPrinting().create().toJson(json));
+		} catch (IOException e) {
+			Telebooks.LOGGER.warn("Failed to write entity test report", e);
+		}
+
+		context.assertTrue(landed == crowd, Text.literal("Only " + landed + " of " + crowd + " entities landed in a move"));
+		context.assertTrue(remaining == crowd, Text.literal(remaining + " of " + crowd + " entities left on the books"));
+		context.complete();
+	}
+
+	static class LoadRun {
+		enum Phase {
+			BASELINE,
+			LOAD,
+			FINISHED,
+		}
+
+		record Click(Telebooks.BookLocation origin, long startNanos, int startTick) {}
+
+		static class SimulatedPlayer {
+			final FakePlayer player;
+
+			int clicksLeft;
+			Click click;
+
+			SimulatedPlayer(FakePlayer player, int clicks) {
+				this.player = player;
+				this.clicksLeft = clicks;
+			}
+		}
+
+		final ServerWorld world;
+		final Parameters parameters;
+
+		// Clicks go through an instance of their own, the same way the use callback would call it
+		final Telebooks telebooks = new Telebooks();
+
+		final ArrayList<Telebooks.BookLocation> validBooks = new ArrayList<>();
+		final HashMap<BlockPos, Telebooks.BookLocation> booksByCenter = new HashMap<>();
+
+		final ArrayList<SimulatedPlayer> players = new ArrayList<>();
+		final HashSet<BlockPos> departing = new HashSet<>();
+
+		final Random random = new Random(0x7e1eb00c);
+
+		Phase phase = Phase.BASELINE;
+		int phaseTicks = 0;
+
+		long tickStart;
+		final LongArrayList baselineTicks = new LongArrayList();
+		final LongArrayList loadTicks = new LongArrayList();
+
+		final LongArrayList arrivals = new LongArrayList();
+		int failures = 0;
+		int rejections = 0;
+
+		// Players who left their book without standing on a valid one afterwards
+		int strayArrivals = 0;
+		int brokenArrivals = 0;
+
+		long loadStart;
+		long loadEnd;
+
+		Telebooks.Config originalConfig;
+		boolean restored = false;
+
+		int startTick;
+
+		String gateFailure;
+
+		LoadRun(ServerWorld world, Parameters parameters) {
+			this.world = world;
+			this.parameters = parameters;
+		}
+
+		public boolean isFinished() {
+			return phase == Phase.FINISHED;
+		}
+
+		public String getGateFailure() {
+			return gateFailure;
+		}
+
+		void build() {
+			startTick = world.getServer().getTicks();
+
+			var state = Telebooks.State.get(world.getServer());
+
+			for (int chainIndex = 0; chainIndex < parameters.chains; chainIndex++) {
+				Telebooks.BookChain chain = null;
+
+				for (int bookIndex = 0; bookIndex < parameters.chainSize; bookIndex++) {
+					var center = new BlockPos(ORIGIN + bookIndex * BOOK_SPACING, BOOK_Y, ORIGIN + chainIndex * BOOK_SPACING);
+					var forward = HORIZONTALS[random.nextInt(HORIZONTALS.length)];
+
+					buildBook(center, forward, chainIndex);
+
+					var pattern = Telebooks.tryGetBookPattern(world, center, forward).orElseThrow();
+					if (chain == null) {
+						chain = state.getOrCreateBookChain(pattern);
+					}
+
+					var book = new Telebooks.BookLocation(world.getRegistryKey(), center, forward, Optional.empty());
+					if (state.index.find(book).isEmpty()) {
+						state.addBook(chain, book);
+					}
+
+					booksByCenter.put(center, book);
+
+					// Broken destinations stay registered, teleports are left to find out on their own
+					if (random.nextInt(100) < parameters.brokenPercent) {
+						world.setBlockState(center, Blocks.GLASS.getDefaultState());
+					} else {
+						validBooks.add(book);
+					}
+				}
+			}
+
+			Telebooks.LOGGER.info("Load test built {} books, {} of them valid", booksByCenter.size(), validBooks.size());
+		}
+
+		private void buildBook(BlockPos center, Direction forward, int patternSeed) {
+			for (int offX = -2; offX <= 2; offX++) {
+				for (int offZ = -2; offZ <= 2; offZ++) {
+					var pos = center.add(offX, 0, offZ);
+
+					if (Math.abs(offX) == 2 || Math.abs(offZ) == 2) {
+						world.setBlockState(pos, Blocks.SMOOTH_STONE.getDefaultState());
+						world.setBlockState(pos.down(), Blocks.OBSIDIAN.getDefaultState());
+					} else {
+						world.setBlockState(pos, PATTERN_BLOCKS.get(patternSeed % PATTERN_BLOCKS.size()).getDefaultState());
+						patternSeed /= 2;
+					}
+				}
+			}
+
+			var lecternPos = center.offset(forward, -2).up();
+
+			world.setBlockState(lecternPos, Blocks.LECTERN.getDefaultState()
+				.with(LecternBlock.FACING, forward)
+				.with(LecternBlock.HAS_BOOK, true));
+
+			if (world.getBlockEntity(lecternPos) instanceof LecternBlockEntity lectern) {
+				lectern.setBook(new ItemStack(Items.WRITTEN_BOOK));
+			}
+		}
+
+		private void startLoad() {
+			// Every chunk load requested by a teleport arrives late by the configured latency
+			chunkLatencyMillis = parameters.latencyMillis;
+
+			// The sweeper would otherwise prune broken destinations before teleports get to them
+			originalConfig = Telebooks.CONFIG;
+			Telebooks.CONFIG = new Telebooks.Config(
+				originalConfig.teleport(),
+				originalConfig.persistence(),
+				originalConfig.warmAnchors(),
+				originalConfig.picker(),
+				originalConfig.prewarm(),
+				new Telebooks.Config.Sweeper(false, originalConfig.sweeper().tickBudgetMillis(), originalConfig.sweeper().passInterval()),
+				originalConfig.metrics(),
+				originalConfig.cargo()
+			);
+
+			for (int index = 0; index < parameters.players; index++) {
+				var profile = new GameProfile(UUID.nameUUIDFromBytes(("telebooks-loadtest-" + index).getBytes()), "telebot" + index);
+				var player = FakePlayer.get(world, profile);
+
+				place(player, validBooks.get(random.nextInt(validBooks.size())));
+				world.onPlayerConnected(player);
+
+				players.add(new SimulatedPlayer(player, parameters.clicks));
+			}
+
+			loadStart = System.nanoTime();
+		}
+
+		private void place(FakePlayer player, Telebooks.BookLocation book) {
+			player.refreshPositionAndAngles(book.center.getX() + 0.5, book.center.getY() + 1, book.center.getZ() + 0.5, 0, 0);
+		}
+
+		// Books are stood on, so the block below the feet is the center of the book
+		private Telebooks.BookLocation findBook(FakePlayer player) {
+			var book = booksByCenter.get(player.getBlockPos().down());
+			return book != null && book.activeArea().contains(player.getEntityPos()) ? book : null;
+		}
+
+		// Arrivals keep their offset from the center, so any book whose active area holds the player
+		private Telebooks.BookLocation findBookAround(FakePlayer player) {
+			for (var book : booksByCenter.values()) {
+				if (book.activeArea().contains(player.getEntityPos())) {
+					return book;
+				}
+			}
+			return null;
+		}
+
+		private void tickLoad() {
+			int tick = world.getServer().getTicks();
+			boolean busy = false;
+
+			for (var simulated : players) {
+				var player = simulated.player;
+
+				if (simulated.click != null) {
+					busy = true;
+
+					if (!simulated.click.origin.activeArea().contains(player.getEntityPos())) {
+						var landed = findBookAround(player);
+
+						if (landed == null) {
+							strayArrivals++;
+						} else if (!validBooks.contains(landed)) {
+							brokenArrivals++;
+						} else {
+							arrivals.add(System.nanoTime() - simulated.click.startNanos);
+						}
+
+						departing.remove(simulated.click.origin.center);
+						simulated.click = null;
+					} else if (tick - simulated.click.startTick > Telebooks.CONFIG.teleport().timeoutTicks() + 40) {
+						failures++;
+						departing.remove(simulated.click.origin.center);
+						simulated.click = null;
+					}
+					continue;
+				}
+
+				if (simulated.clicksLeft <= 0) {
+					continue;
+				}
+				busy = true;
+
+				// Players carried off by someone else's teleport, or left somewhere odd start over
+				var book = findBook(player);
+				if (book == null || !validBooks.contains(book)) {
+					place(player, validBooks.get(random.nextInt(validBooks.size())));
+					continue;
+				}
+
+				// A book only departs once at a time, other occupants wait for the next one
+				if (departing.contains(book.center)) {
+					continue;
+				}
+
+				var lecternPos = book.center.offset(book.forward, -2).up();
+				var result = telebooks.handleLecternUse(player, world, lecternPos, null);
+
+				if (result != ActionResult.CONSUME) {
+					rejections++;
+					continue;
+				}
+
+				simulated.clicksLeft--;
+				simulated.click = new Click(book, System.nanoTime(), tick);
+				departing.add(book.center);
+			}
+
+			if (!busy) {
+				finish();
+			}
+		}
+
+		// Clicks happen inside the measured tick, synchronous teleports included
+		void onTickStart() {
+			tickStart = System.nanoTime();
+
+			if (phase == Phase.LOAD) {
+				tickLoad();
+			}
+		}
+
+		void onTickEnd() {
+			if (tickStart == 0 || phase == Phase.FINISHED) {
+				return;
+			}
+
+			// The test fails on the last tick, whatever the run changed must not outlive it
+			if (world.getServer().getTicks() - startTick >= MAX_TICKS - 1) {
+				abort("Timed out");
+				return;
+			}
+
+			long tickNanos = System.nanoTime() - tickStart;
+
+			switch (phase) {
+				case BASELINE -> {
+					baselineTicks.add(tickNanos);
+
+					if (++phaseTicks >= parameters.baselineTicks) {
+						phase = Phase.LOAD;
+						phaseTicks = 0;
+
+						startLoad();
+					}
+				}
+				case LOAD -> {
+					loadTicks.add(tickNanos);
+					phaseTicks++;
+				}
+			}
+		}
+
+		private void finish() {
+			loadEnd = System.nanoTime();
+			phase = Phase.FINISHED;
+
+			restore();
+			report();
+		}
+
+		// Whichever way the run ends, later tests get the latency, configuration and players they had
+		private void restore() {
+			if (restored) {
+				return;
+			}
+			restored = true;
+
+			chunkLatencyMillis = 0;
+
+			if (originalConfig != null) {
+				Telebooks.CONFIG = originalConfig;
+			}
+
+			for (var simulated : players) {
+				world.removePlayer(simulated.player, Entity.RemovalReason.DISCARDED);
+			}
+
+			if (current == this) {
+				current = null;
+			}
+		}
+
+		void abort(String reason) {
+			Telebooks.LOGGER.error("Load test aborted: {}", reason);
+
+			gateFailure = reason;
+			phase = Phase.FINISHED;
+
+			restore();
+		}
+
+		void guarded(Runnable step) {
+			try {
+				step.run();
+			} catch (RuntimeException e) {
+				Telebooks.LOGGER.error("Load test crashed", e);
+				abort("Load test crashed: " + e);
+			}
+		}
+
+		private static double percentileMillis(LongArrayList samples, double quantile) {
+			if (samples.isEmpty()) {
+				return 0;
+			}
+
+			var sorted = samples.toLongArray();
+			Arrays.sort(sorted);
+
+			int index = Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1);
+			return sorted[Math.max(0, index)] / 1_000_000.0;
+		}
+
+		private static double meanMillis(LongArrayList samples) {
+			return samples.isEmpty() ? 0 : samples.longStream().average().orElse(0) / 1_000_000.0;
+		}
+
+		private void report() {
+			double seconds = (loadEnd - loadStart) / 1_000_000_000.0;
+			double teleportsPerSecond = seconds > 0 ? arrivals.size() / seconds : 0;
+
+			var json = new JsonObject();
+
+			var parametersJson = new JsonObject();
+			parametersJson.addProperty("chains", parameters.chains);
+			parametersJson.addProperty("chain_size", parameters.chainSize);
+			parametersJson.addProperty("players", parameters.players);
+			parametersJson.addProperty("clicks", parameters.clicks);
+			parametersJson.addProperty("broken_percent", parameters.brokenPercent);
+			parametersJson.addProperty("latency_ms", parameters.latencyMillis);
+			json.add("parameters", parametersJson);
+
+			json.addProperty("duration_s", seconds);
+			json.addProperty("teleports", arrivals.size());
+			json.addProperty("failures", failures);
+			json.addProperty("rejections", rejections);
+			json.addProperty("stray_arrivals", strayArrivals);
+			json.addProperty("broken_arrivals", brokenArrivals);
+			json.addProperty("teleports_per_second", teleportsPerSecond);
+			json.addProperty("arrival_p50_ms", percentileMillis(arrivals, 0.5));
+			json.addProperty("arrival_p99_ms", percentileMillis(arrivals, 0.99));
+			json.addProperty("baseline_mspt", meanMillis(baselineTicks));
+			json.addProperty("baseline_mspt_p99", percentileMillis(baselineTicks, 0.99));
+			json.addProperty("load_mspt", meanMillis(loadTicks));
+			json.addProperty("load_mspt_p99", percentileMillis(loadTicks, 0.99));
+			json.add("metrics", Telebooks.METRICS.toJson());
+
+			Telebooks.LOGGER.info("Load test: {} teleports in {}s ({}/s), {} failed, {} rejected, {} stray, {} onto broken books",
+				arrivals.size(), String.format("%.1f", seconds), String.format("%.1f", teleportsPerSecond), failures, rejections, strayArrivals, brokenArrivals);
+			Telebooks.LOGGER.info("Load test: click to arrival p50 {}ms, p99 {}ms",
+				String.format("%.1f", percentileMillis(arrivals, 0.5)), String.format("%.1f", percentileMillis(arrivals, 0.99)));
+			Telebooks.LOGGER.info("Load test: MSPT {} -> {} (p99 {} -> {})",
+				String.format("%.2f", meanMillis(baselineTicks)), String.format("%.2f", meanMillis(loadTicks)),
+				String.format("%.2f", percentileMillis(baselineTicks, 0.99)), String.format("%.2f", percentileMillis(loadTicks, 0.99)));
+
+			var file = FabricLoader.getInstance().getGameDir().resolve("telebooks-loadtest.json");
+
+			try {
+				Files.writeString(file, new GsonBuilder().setPrettyPrinting().create().toJson(json));
+			} catch (IOException e) {
+				Telebooks.LOGGER.warn("Failed to write load test report", e);
+			}
+
+			if (arrivals.isEmpty()) {
+				gateFailure = "No teleport arrived";
+			} else if (brokenArrivals > 0) {
+				gateFailure = String.format("%d teleports landed on broken books", brokenArrivals);
+			} else if (strayArrivals > 0) {
+				gateFailure = String.format("%d teleports left their book without landing on a valid one", strayArrivals);
+			} else if (parameters.maxP99Millis > 0 && percentileMillis(arrivals, 0.99) > parameters.maxP99Millis) {
+				gateFailure = String.format("Click to arrival p99 of %.1fms exceeds %.1fms", percentileMillis(arrivals, 0.99), parameters.maxP99Millis);
+			}
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package com.mentlerd.gametest.mixin;
+
+import com.mentlerd.TeleportLoadTest;
+import com.mentlerd.Telebooks;
+import com.mentlerd.mixin.ServerChunkManagerAccessor;
+import net.minecraft.server.world.OptionalChunk;
+import net.minecraft.server.world.ServerChunkManager;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkStatus;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Redirect;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Chunk loads requested by teleports arrive late by the latency of the load test in progress. Only
+//  those are slowed down - the server loading chunks for its own needs is left alone.
+@Mixin(value = Telebooks.class, remap = false)
+public abstract class ChunkLoadLatencyMixin {
+    @Redirect(
+        method = "asyncChunkLoad",
+        at = @At(
+            value = "INVOKE",
+            target = "Lcom/mentlerd/mixin/ServerChunkManagerAccessor;invokeGetChunkFuture(IILnet/minecraft/world/chunk/ChunkStatus;Z)Ljava/util/concurrent/CompletableFuture;"
+        )
+    )
+    private CompletableFuture<OptionalChunk<Chunk>> telebooksLoadtest$delay(ServerChunkManagerAccessor accessor, int chunkX, int chunkZ, ChunkStatus leastStatus, boolean create) {
+        var future = accessor.invokeGetChunkFuture(chunkX, chunkZ, leastStatus, create);
+
+        int latency = TeleportLoadTest.chunkLatencyMillis;
+        if (latency <= 0) {
+            return future;
+        }
+
+        var server = ((ServerChunkManager) accessor).getWorld().getServer();
+        return future.thenApplyAsync(chunk -> chunk, CompletableFuture.delayedExecutor(latency, TimeUnit.MILLISECONDS, server));
+    }
+}
@@ -0,0 +1,67 @@
+package com.mentlerd;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// The bookkeeping done on every lectern use: looking for overlapping books, then moving a book
+//  out of and back into its chain and the index, as evicting and re-registering it does. Journaling
+//  is left out, it only appends to a buffer.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookIndexBenchmark {
+	@Param({"10000", "100000"})
+	int bookCount;
+
+	@Param({"16", "1024"})
+	int chainSize;
+
+	Telebooks.BookStore.Contents contents;
+	Telebooks.BookIndex index;
+
+	int cursor = 0;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		Fixtures.bootstrap();
+
+		contents = Fixtures.contents(bookCount, chainSize);
+		index = new Telebooks.BookIndex();
+
+		for (var chain : contents.chains.values()) {
+			for (var book : chain.books()) {
+				index.add(book, chain.id());
+			}
+		}
+	}
+
+	private Telebooks.BookLocation next() {
+		cursor = (cursor + 7919) % bookCount;
+		return Fixtures.book(cursor);
+	}
+
+	@Benchmark
+	public List<Telebooks.BookIndex.Entry> findOverlapping() {
+		return index.findOverlapping(next());
+	}
+
+	@Benchmark
+	public boolean evictAndRejoin() {
+		var book = next();
+
+		var chain = contents.chains.get(index.find(book).orElseThrow().chainID());
+
+		boolean removed = contents.removeBook(chain, book);
+		index.remove(book);
+
+		contents.addBook(chain, book);
+		index.add(book, chain.id());
+
+		return removed;
+	}
+}
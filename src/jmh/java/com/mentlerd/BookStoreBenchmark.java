@@ -0,0 +1,79 @@
+package com.mentlerd;
+
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtOps;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+// Whole store round-trips, against the legacy codec based encoding they replaced
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookStoreBenchmark {
+	@Param({"10000", "50000"})
+	int bookCount;
+
+	@Param({"16"})
+	int chainSize;
+
+	Path directory;
+
+	Telebooks.BookStore.Snapshot snapshot;
+	Telebooks.Database database;
+	NbtElement legacy;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		Fixtures.bootstrap();
+
+		directory = Files.createTempDirectory("telebooks-jmh");
+
+		var contents = Fixtures.contents(bookCount, chainSize);
+
+		snapshot = contents.toSnapshot(1);
+		Telebooks.BookStore.writeSnapshot(directory, snapshot);
+
+		Fixtures.checkSameChains(contents, Telebooks.BookStore.read(directory));
+
+		database = new Telebooks.Database(new ArrayList<>(contents.chains.values()));
+		legacy = Telebooks.Database.CODEC.encodeStart(NbtOps.INSTANCE, database).getOrThrow();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		try (var files = Files.walk(directory)) {
+			for (var file : files.sorted(Comparator.reverseOrder()).toList()) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	@Benchmark
+	public void writeSnapshot() throws IOException {
+		Telebooks.BookStore.writeSnapshot(directory, snapshot);
+	}
+
+	@Benchmark
+	public Telebooks.BookStore.Contents readSnapshot() throws IOException {
+		return Telebooks.BookStore.read(directory);
+	}
+
+	@Benchmark
+	public NbtElement legacyEncode() {
+		return Telebooks.Database.CODEC.encodeStart(NbtOps.INSTANCE, database).getOrThrow();
+	}
+
+	@Benchmark
+	public Telebooks.Database legacyDecode() {
+		return Telebooks.Database.CODEC.parse(NbtOps.INSTANCE, legacy).getOrThrow();
+	}
+}
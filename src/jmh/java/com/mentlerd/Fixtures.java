@@ -0,0 +1,89 @@
+package com.mentlerd;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.block.Block;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.world.World;
+
+import java.util.List;
+import java.util.Optional;
+
+// Shared setup of the benchmarks. Blocks and registries have to be bootstrapped before anything
+//  touching patterns can run, just like in the game itself.
+final class Fixtures {
+	private Fixtures() {}
+
+	static void bootstrap() {
+		SharedConstants.createGameVersion();
+		Bootstrap.initialize();
+	}
+
+	// Pattern cells are picked from here, so every chain can have a distinct pattern
+	static final List<Block> PATTERN_BLOCKS = List.of(
+		Blocks.STONE, Blocks.GRANITE, Blocks.DIORITE, Blocks.ANDESITE,
+		Blocks.DIRT, Blocks.COBBLESTONE, Blocks.OAK_PLANKS, Blocks.SPRUCE_PLANKS,
+		Blocks.SAND, Blocks.GRAVEL, Blocks.GOLD_BLOCK, Blocks.IRON_BLOCK,
+		Blocks.DIAMOND_BLOCK, Blocks.EMERALD_BLOCK, Blocks.LAPIS_BLOCK, Blocks.REDSTONE_BLOCK
+	);
+
+	static Telebooks.Pattern pattern(int seed) {
+		var builder = new Telebooks.Pattern.Builder();
+
+		for (int cell = 0; cell < Telebooks.Pattern.CELLS; cell++) {
+			builder.add(PATTERN_BLOCKS.get(seed % PATTERN_BLOCKS.size()));
+			seed /= PATTERN_BLOCKS.size();
+		}
+
+		return builder.build();
+	}
+
+	// Books are laid out on a grid, in chains of the given size. Neighbouring books are close enough
+	//  for their safe areas to be checked against each other, but not to overlap.
+	static BlockPos gridPosition(int index) {
+		return new BlockPos((index % 1024) * 4, 64, (index / 1024) * 4);
+	}
+
+	static Telebooks.BookLocation book(int index) {
+		var flavour = index % 3 == 0 ? Optional.<String>empty() : Optional.of("Destination " + index + "\n\n\n\n");
+		return new Telebooks.BookLocation(World.OVERWORLD, gridPosition(index), Direction.values()[2 + index % 4], flavour);
+	}
+
+	// Store contents of the given number of books, in chains of the given size. No server is needed,
+	//  chain ids and patterns are derived from the book index.
+	static Telebooks.BookStore.Contents contents(int bookCount, int chainSize) {
+		var contents = new Telebooks.BookStore.Contents();
+
+		for (int index = 0; index < bookCount; index++) {
+			int id = index / chainSize;
+
+			var chain = contents.chains.get(id);
+			if (chain == null) {
+				chain = new Telebooks.BookChain(id, pattern(id));
+				contents.addChain(chain);
+			}
+
+			contents.addBook(chain, book(index));
+		}
+
+		return contents;
+	}
+
+	// Benchmarks of the store first check that it reads back what it wrote, a fast reader of the
+	//  wrong data is worth nothing
+	static void checkSameChains(Telebooks.BookStore.Contents expected, Telebooks.BookStore.Contents actual) {
+		if (expected.chains.size() != actual.chains.size()) {
+			throw new IllegalStateException("Expected " + expected.chains.size() + " chains, read " + actual.chains.size());
+		}
+
+		for (var chain : expected.chains.values()) {
+			var read = actual.chains.get(chain.id());
+
+			if (read == null || !read.pattern().equals(chain.pattern()) || !read.books().equals(chain.books())) {
+				throw new IllegalStateException("Chain " + chain.id() + " did not survive the round-trip");
+			}
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package com.mentlerd;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.PalettedContainer;
+
+// Stand-in for the sections of a world, so the pattern scanner can run without a server
+final class InMemorySections implements Telebooks.PatternScanner.SectionLookup {
+	private final Long2ObjectOpenHashMap<ChunkSection> sections = new Long2ObjectOpenHashMap<>();
+
+	@Override
+	public ChunkSection getSection(int chunkX, int chunkZ, int sectionY) {
+		return sections.get(ChunkSectionPos.asLong(chunkX, sectionY, chunkZ));
+	}
+
+	public void setBlockState(BlockPos pos, BlockState state) {
+		var key = ChunkSectionPos.asLong(
+			ChunkSectionPos.getSectionCoord(pos.getX()),
+			ChunkSectionPos.getSectionCoord(pos.getY()),
+			ChunkSectionPos.getSectionCoord(pos.getZ())
+		);
+
+		var section = sections.computeIfAbsent(key, k -> new ChunkSection(
+			new PalettedContainer<>(Block.STATE_IDS, Blocks.AIR.getDefaultState(), PalettedContainer.PaletteProvider.BLOCK_STATE),
+			null
+		));
+
+		section.setBlockState(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15, state, false);
+	}
+}
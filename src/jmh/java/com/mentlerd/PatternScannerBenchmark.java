@@ -0,0 +1,89 @@
+package com.mentlerd;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.LecternBlock;
+import net.minecraft.util.BlockRotation;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.world.EmptyBlockView;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Scans of a complete book, and of one rejected by its frame. Books sit on a chunk corner, so every
+//  scan has to gather sections from four chunks - the worst case in the world.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatternScannerBenchmark {
+	@Param({"EAST", "SOUTH", "WEST", "NORTH"})
+	Direction forward;
+
+	final BlockPos valid = new BlockPos(0, 64, 0);
+	final BlockPos brokenFrame = new BlockPos(32, 64, 0);
+
+	final Telebooks.PatternScanner scanner = new Telebooks.PatternScanner();
+	final InMemorySections world = new InMemorySections();
+
+	@Setup(Level.Trial)
+	public void setup() {
+		Fixtures.bootstrap();
+
+		build(valid, Fixtures.pattern(12345));
+		build(brokenFrame, Fixtures.pattern(12345));
+
+		// A single mismatched frame block is enough to reject a book
+		world.setBlockState(brokenFrame.add(2, 0, 1), Blocks.DIRT.getDefaultState());
+	}
+
+	private void build(BlockPos center, Telebooks.Pattern pattern) {
+		for (int offX = -2; offX <= 2; offX++) {
+			for (int offZ = -2; offZ <= 2; offZ++) {
+				boolean frame = Math.abs(offX) == 2 || Math.abs(offZ) == 2;
+
+				if (frame) {
+					world.setBlockState(center.add(offX, 0, offZ), Blocks.SMOOTH_STONE.getDefaultState());
+					world.setBlockState(center.add(offX, -1, offZ), Blocks.OBSIDIAN.getDefaultState());
+				}
+			}
+		}
+
+		// Cells are laid out in the local frame of the book, rotated the same way the scanner does
+		var rotation = switch (forward) {
+			case SOUTH -> BlockRotation.CLOCKWISE_90;
+			case WEST -> BlockRotation.CLOCKWISE_180;
+			case NORTH -> BlockRotation.COUNTERCLOCKWISE_90;
+			default -> BlockRotation.NONE;
+		};
+
+		int cell = 0;
+
+		for (int offX = -1; offX <= 1; offX++) {
+			for (int offZ = -1; offZ <= 1; offZ++) {
+				Block block = pattern.block(cell++);
+				world.setBlockState(center.add(new BlockPos(offX, 0, offZ).rotate(rotation)), block.getDefaultState());
+			}
+		}
+
+		var lectern = Blocks.LECTERN.getDefaultState()
+			.with(LecternBlock.FACING, forward)
+			.with(LecternBlock.HAS_BOOK, true);
+
+		world.setBlockState(center.add(-forward.getOffsetX() * 2, 1, -forward.getOffsetZ() * 2), lectern);
+	}
+
+	@Benchmark
+	public Optional<Telebooks.Pattern> scanValid() {
+		return scanner.scan(world, EmptyBlockView.INSTANCE, valid, forward);
+	}
+
+	@Benchmark
+	public Optional<Telebooks.Pattern> scanBrokenFrame() {
+		return scanner.scan(world, EmptyBlockView.INSTANCE, brokenFrame, forward);
+	}
+}
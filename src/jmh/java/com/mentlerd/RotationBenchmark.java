@@ -0,0 +1,29 @@
+package com.mentlerd;
+
+import net.minecraft.util.BlockRotation;
+import net.minecraft.util.math.Vec3d;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Rotations applied to every entity carried by a teleport
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RotationBenchmark {
+	@Param({"NONE", "CLOCKWISE_90", "CLOCKWISE_180", "COUNTERCLOCKWISE_90"})
+	BlockRotation rotation;
+
+	final Vec3d offset = new Vec3d(1.25, 0.5, -0.75);
+	final float yaw = 37.5f;
+
+	@Benchmark
+	public void rotateEntity(Blackhole blackhole) {
+		blackhole.consume(Telebooks.Rotations.rotateOffset(offset, rotation));
+		blackhole.consume(Telebooks.Rotations.rotateYaw(yaw, rotation));
+	}
+}
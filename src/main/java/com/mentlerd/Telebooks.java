@@ -1,24 +1,44 @@
 package com.mentlerd;
 
 import com.google.common.base.Predicates;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.mentlerd.mixin.ChunkTicketTypeAccessor;
+import com.mentlerd.mixin.ItemEntityInvoker;
 import com.mentlerd.mixin.ServerChunkManagerAccessor;
-import com.mojang.datafixers.util.Pair;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.DataResult;
-import com.mojang.serialization.DynamicOps;
+import com.mojang.serialization.JsonOps;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import net.fabricmc.api.DedicatedServerModInitializer;
 
+import net.fabricmc.loader.api.FabricLoader;
+
+import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerChunkEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import net.fabricmc.fabric.api.event.player.UseBlockCallback;
 
 import net.minecraft.block.*;
+import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.block.entity.BlockEntityType;
 import net.minecraft.block.entity.SignBlockEntity;
+import net.minecraft.block.enums.ChestType;
 import net.minecraft.component.ComponentMap;
 import net.minecraft.component.DataComponentTypes;
 import net.minecraft.component.type.WrittenBookContentComponent;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityType;
+import net.minecraft.entity.ItemEntity;
 import net.minecraft.entity.SpawnReason;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.entity.player.PlayerInventory;
@@ -27,12 +47,17 @@ import net.minecraft.item.ItemStack;
 import net.minecraft.item.Items;
 import net.minecraft.nbt.*;
 import net.minecraft.network.packet.s2c.play.PositionFlag;
+import net.minecraft.registry.Registries;
 import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
 import net.minecraft.screen.*;
 import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.command.CommandManager;
+import net.minecraft.server.command.ServerCommandSource;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ChunkTicketType;
 import net.minecraft.server.world.ServerWorld;
+import net.minecraft.state.property.Properties;
 import net.minecraft.storage.NbtWriteView;
 import net.minecraft.text.*;
 import net.minecraft.util.*;
@@ -41,13 +66,47 @@ import net.minecraft.util.hit.HitResult;
 import net.minecraft.util.math.*;
 import net.minecraft.world.*;
 
+import net.minecraft.world.chunk.ChunkSection;
 import net.minecraft.world.chunk.ChunkStatus;
+import net.minecraft.world.chunk.WorldChunk;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
 
 @SuppressWarnings("unused")
 public class Telebooks implements DedicatedServerModInitializer {
@@ -55,44 +114,223 @@ public class Telebooks implements DedicatedServerModInitializer {
 
 	public static final Logger LOGGER = LoggerFactory.getLogger(Telebooks.class);
 
-	static Vec3d rotateOffset(Vec3d vec, BlockRotation rotation) {
-		return switch (rotation) {
-			case NONE -> vec;
-			case CLOCKWISE_90 -> new Vec3d(-vec.getZ(), vec.getY(), vec.getX());
-			case CLOCKWISE_180 -> new Vec3d(-vec.getX(), vec.getY(), -vec.getZ());
-			case COUNTERCLOCKWISE_90 -> new Vec3d(vec.getZ(), vec.getY(), -vec.getX());
-		};
+	record Config(Teleport teleport, Persistence persistence, WarmAnchors warmAnchors, Picker picker, Prewarm prewarm, Sweeper sweeper, Metrics metrics, Cargo cargo) {
+		// Every entry is optional, so decoding nothing yields the defaults
+		static <T> T defaultsOf(Codec<T> codec) {
+			return codec.parse(JsonOps.INSTANCE, new JsonObject()).getOrThrow();
+		}
+
+		// How candidates whose surroundings are already loaded are favoured over the rest
+		enum ResidentPolicy implements StringIdentifiable {
+			// Rotation order is kept, resident candidates only skip the asynchronous load
+			ROTATION("rotation"),
+			// Resident candidates are tried first, in rotation order, followed by the rest
+			PREFER("prefer"),
+			// Candidates found unloaded are skipped, unless none were resident
+			SKIP_UNLOADED("skip_unloaded");
+
+			static final Codec<ResidentPolicy> CODEC = StringIdentifiable.createCodec(ResidentPolicy::values);
+
+			private final String id;
+
+			ResidentPolicy(String id) {
+				this.id = id;
+			}
+
+			@Override
+			public String asString() {
+				return id;
+			}
+		}
+
+		record Teleport(int probeConcurrency, double tickBudgetMillis, int timeoutTicks, int maxInFlight, int entitiesPerTick, ResidentPolicy residentPolicy) {
+			static final Codec<Teleport> CODEC = RecordCodecBuilder.create(instance ->
+					instance.group(
+							Codecs.POSITIVE_INT.optionalFieldOf("probe_concurrency", 1).forGetter(Teleport::probeConcurrency),
+							Codec.doubleRange(0.0, 50.0).optionalFieldOf("tick_budget_ms", 2.0).forGetter(Teleport::tickBudgetMillis),
+							Codecs.POSITIVE_INT.optionalFieldOf("timeout_ticks", 200).forGetter(Teleport::timeoutTicks),
+							Codecs.POSITIVE_INT.optionalFieldOf("max_in_flight", 64).forGetter(Teleport::maxInFlight),
+							Codecs.POSITIVE_INT.optionalFieldOf("entities_per_tick", 32).forGetter(Teleport::entitiesPerTick),
+							ResidentPolicy.CODEC.optionalFieldOf("resident_candidates", ResidentPolicy.ROTATION).forGetter(Teleport::residentPolicy)
+					).apply(instance, Teleport::new)
+			);
+			static final Teleport DEFAULT = defaultsOf(CODEC);
+		}
+
+		// A flush interval of zero leaves flushing to the vanilla autosave. The journal is folded into
+		//  a new snapshot once it holds this many records.
+		record Persistence(int flushInterval, int compactAfter) {
+			static final Codec<Persistence> CODEC = RecordCodecBuilder.create(instance ->
+					instance.group(
+							Codecs.NON_NEGATIVE_INT.optionalFieldOf("flush_interval_ticks", 100).forGetter(Persistence::flushInterval),
+							Codecs.POSITIVE_INT.optionalFieldOf("compact_after_records", 4096).forGetter(Persistence::compactAfter)
+					).apply(instance, Persistence::new)
+			);
+			static final Persistence DEFAULT = defaultsOf(CODEC);
+		}
+
+		// Every anchored destination costs the 9 chunks surrounding it
+		record WarmAnchors(boolean enabled, int chunkBudget, int decayInterval) {
+			static final Codec<WarmAnchors> CODEC = RecordCodecBuilder.create(instance ->
+					instance.group(
+							Codec.BOOL.optionalFieldOf("enabled", false).forGetter(WarmAnchors::enabled),
+							Codecs.NON_NEGATIVE_INT.optionalFieldOf("chunk_budget", 36).forGetter(WarmAnchors::chunkBudget),
+							Codecs.POSITIVE_INT.optionalFieldOf("decay_interval_ticks", 72000).forGetter(WarmAnchors::decayInterval)
+					).apply(instance, WarmAnchors::new)
+			);
+			static final WarmAnchors DEFAULT = defaultsOf(CODEC);
+		}
+
+		// Destinations this many pages around the open one are loaded ahead of time. Chains with more
+		//  books than the window are shown a window at a time, switching as the reader flips past the ends.
+		record Picker(int prefetchRadius, int windowPages) {
+			static final Codec<Picker> CODEC = RecordCodecBuilder.create(instance ->
+					instance.group(
+							Codecs.NON_NEGATIVE_INT.optionalFieldOf("prefetch_radius", 1).forGetter(Picker::prefetchRadius),
+							Codecs.POSITIVE_INT.optionalFieldOf("window_pages", 100).forGetter(Picker::windowPages)
+					).apply(instance, Picker::new)
+			);
+			static final Picker DEFAULT = defaultsOf(CODEC);
+		}
+
+		// Stepping into the active area of a book starts loading its most likely destination
+		record Prewarm(boolean enabled) {
+			static final Codec<Prewarm> CODEC = RecordCodecBuilder.create(instance ->
+					instance.group(
+							Codec.BOOL.optionalFieldOf("enabled", true).forGetter(Prewarm::enabled)
+					).apply(instance, Prewarm::new)
+			);
+			static final Prewarm DEFAULT = defaultsOf(CODEC);
+		}
+
+		// Books around loaded chunks are re-validated in the background, within this much time per tick.
+		//  Passes over every book start at most this often.
+		record Sweeper(boolean enabled, double tickBudgetMillis, int passInterval) {
+			static final Codec<Sweeper> CODEC = RecordCodecBuilder.create(instance ->
+					instance.group(
+							Codec.BOOL.optionalFieldOf("enabled", true).forGetter(Sweeper::enabled),
+							Codec.doubleRange(0.0, 50.0).optionalFieldOf("tick_budget_ms", 0.5).forGetter(Sweeper::tickBudgetMillis),
+							Codecs.NON_NEGATIVE_INT.optionalFieldOf("min_pass_interval_ticks", 1200).forGetter(Sweeper::passInterval)
+					).apply(instance, Sweeper::new)
+			);
+			static final Sweeper DEFAULT = defaultsOf(CODEC);
+		}
+
+		// Metrics are written to a file in the world folder this often, zero disables the dump
+		record Metrics(int dumpInterval) {
+			static final Codec<Metrics> CODEC = RecordCodecBuilder.create(instance ->
+					instance.group(
+							Codecs.NON_NEGATIVE_INT.optionalFieldOf("dump_interval_ticks", 0).forGetter(Metrics::dumpInterval)
+					).apply(instance, Metrics::new)
+			);
+			static final Metrics DEFAULT = defaultsOf(CODEC);
+		}
+
+		// Blocks above a book are carried along, within this many blocks of its center horizontally
+		//  and this many blocks up. Blocks are only placed into air, the ones which do not fit stay behind.
+		record Cargo(boolean enabled, int radius, int height) {
+			static final Codec<Cargo> CODEC = RecordCodecBuilder.create(instance ->
+					instance.group(
+							Codec.BOOL.optionalFieldOf("enabled", false).forGetter(Cargo::enabled),
+							Codec.intRange(0, 8).optionalFieldOf("radius", 1).forGetter(Cargo::radius),
+							Codec.intRange(1, 16).optionalFieldOf("height", 3).forGetter(Cargo::height)
+					).apply(instance, Cargo::new)
+			);
+			static final Cargo DEFAULT = defaultsOf(CODEC);
+		}
+
+		static final Codec<Config> CODEC = RecordCodecBuilder.create(instance ->
+				instance.group(
+						Teleport.CODEC.optionalFieldOf("teleport", Teleport.DEFAULT).forGetter(Config::teleport),
+						Persistence.CODEC.optionalFieldOf("persistence", Persistence.DEFAULT).forGetter(Config::persistence),
+						WarmAnchors.CODEC.optionalFieldOf("warm_anchors", WarmAnchors.DEFAULT).forGetter(Config::warmAnchors),
+						Picker.CODEC.optionalFieldOf("picker", Picker.DEFAULT).forGetter(Config::picker),
+						Prewarm.CODEC.optionalFieldOf("prewarm", Prewarm.DEFAULT).forGetter(Config::prewarm),
+						Sweeper.CODEC.optionalFieldOf("sweeper", Sweeper.DEFAULT).forGetter(Config::sweeper),
+						Metrics.CODEC.optionalFieldOf("metrics", Metrics.DEFAULT).forGetter(Config::metrics),
+						Cargo.CODEC.optionalFieldOf("cargo", Cargo.DEFAULT).forGetter(Config::cargo)
+				).apply(instance, Config::new)
+		);
+		static final Config DEFAULT = defaultsOf(CODEC);
+
+		// Missing entries are filled in with their defaults, and written back so they are discoverable
+		static Config load(Path path) {
+			var config = DEFAULT;
+
+			if (Files.exists(path)) {
+				try (var reader = Files.newBufferedReader(path)) {
+					config = CODEC.parse(JsonOps.INSTANCE, JsonParser.parseReader(reader)).resultOrPartial(LOGGER::error).orElse(DEFAULT);
+				} catch (IOException | JsonParseException e) {
+					LOGGER.error("Failed to read config, using defaults", e);
+					return DEFAULT;
+				}
+			}
+
+			try (var writer = Files.newBufferedWriter(path)) {
+				new GsonBuilder().setPrettyPrinting().create().toJson(CODEC.encodeStart(JsonOps.INSTANCE, config).getOrThrow(), writer);
+			} catch (IOException e) {
+				LOGGER.error("Failed to write config", e);
+			}
+
+			return config;
+		}
 	}
-	static float rotateYaw(float yaw, BlockRotation rotation) {
-		return switch (rotation) {
-			case NONE -> yaw;
-			case CLOCKWISE_90 -> yaw + 90.0F;
-			case CLOCKWISE_180 -> yaw + 180.0F;
-			case COUNTERCLOCKWISE_90 -> yaw + 270.0F;
-		};
+
+	static Config CONFIG = Config.DEFAULT;
+
+	static final class Rotations {
+		private Rotations() {}
+
+		static Vec3d rotateOffset(Vec3d vec, BlockRotation rotation) {
+			return switch (rotation) {
+				case NONE -> vec;
+				case CLOCKWISE_90 -> new Vec3d(-vec.getZ(), vec.getY(), vec.getX());
+				case CLOCKWISE_180 -> new Vec3d(-vec.getX(), vec.getY(), -vec.getZ());
+				case COUNTERCLOCKWISE_90 -> new Vec3d(vec.getZ(), vec.getY(), -vec.getX());
+			};
+		}
+		static float rotateYaw(float yaw, BlockRotation rotation) {
+			return switch (rotation) {
+				case NONE -> yaw;
+				case CLOCKWISE_90 -> yaw + 90.0F;
+				case CLOCKWISE_180 -> yaw + 180.0F;
+				case COUNTERCLOCKWISE_90 -> yaw + 270.0F;
+			};
+		}
 	}
 
 	static class TeleportVolume {
 		record BlockInfo(Vec3i offset, BlockState state, NbtCompound nbt, ComponentMap components) {}
 		record EntityInfo(Vec3d offset, float yaw, EntityType<?> type, NbtCompound entityData) {}
+		record LiveEntityInfo(Vec3d offset, Entity entity) {}
 		record PlayerInfo(Vec3d offset, float yaw, PlayerEntity player) {}
 
+		// Within the same world entities are moved as they are, instead of being copied through NBT
+		private final boolean inPlace;
+
 		private final ArrayList<EntityInfo> entities = new ArrayList<>();
+		private final ArrayList<LiveEntityInfo> liveEntities = new ArrayList<>();
 		private final ArrayList<PlayerInfo> players = new ArrayList<>();
 
+		// Entities moved in place stay in their source chunks until pasted, which are held meanwhile.
+		//  They may still turn around, so their yaw is only rotated once they are pasted.
+		private ServerWorld sourceWorld;
+		private List<ChunkPos> sourceChunks = List.of();
+		private BlockRotation sourceRotation;
+
+		TeleportVolume(boolean inPlace) {
+			this.inPlace = inPlace;
+		}
+
 		// Passenger state is difficult to restore - serialized vehicles omit player passengers from
 		//  their list, but their order may matter (such as which player is controlling the boat)
 		record PlayerPassengerInfo(UUID player, int index) {}
 
 		private final HashMap<UUID, ArrayList<PlayerPassengerInfo>> playerPassengers = new HashMap<>();
 
-		public void cut(WorldAccess world, BlockPos center, Direction forward) {
-			var right = forward.rotateYClockwise();
-
-			var mins = new Vec3i(-1, 1, -1);
-			var maxs = new Vec3i(1, 4, 1);
-
-			var rotation = switch (forward) {
+		// Rotations from the world into the local coordinate system of a book facing forward, and back
+		private static BlockRotation getCutRotation(Direction forward) {
+			return switch (forward) {
 				case UP, DOWN -> throw new IllegalArgumentException();
 
 				case EAST -> BlockRotation.NONE;
@@ -100,16 +338,57 @@ public class Telebooks implements DedicatedServerModInitializer {
 				case WEST -> BlockRotation.CLOCKWISE_180;
 				case NORTH -> BlockRotation.CLOCKWISE_90;
 			};
+		}
+		private static BlockRotation getPasteRotation(Direction forward) {
+			return switch (forward) {
+				case UP, DOWN -> throw new IllegalArgumentException();
+
+				case EAST -> BlockRotation.NONE;
+				case SOUTH -> BlockRotation.CLOCKWISE_90;
+				case WEST -> BlockRotation.CLOCKWISE_180;
+				case NORTH -> BlockRotation.COUNTERCLOCKWISE_90;
+			};
+		}
+
+		// Blocks carried above a book. The volume is square, so it looks the same from every facing.
+		static BlockBox getCargoBox(BlockPos center) {
+			var cargo = CONFIG.cargo();
+
+			return new BlockBox(
+				center.getX() - cargo.radius(), center.getY() + 1, center.getZ() - cargo.radius(),
+				center.getX() + cargo.radius(), center.getY() + cargo.height(), center.getZ() + cargo.radius()
+			);
+		}
+
+		public void cut(ServerWorld world, BlockPos center, Direction forward) {
+			var rotation = getCutRotation(forward);
+
+			sourceWorld = world;
+			sourceRotation = rotation;
 
 			var centerPos = center.toCenterPos();
 
 			var entityBox = new BookLocation(null, center, forward, Optional.empty()).activeArea();
 
+			// Entities travel with the cargo they stand in
+			if (CONFIG.cargo().enabled()) {
+				var cargoBox = getCargoBox(center);
+
+				entityBox = entityBox.union(new Box(
+					cargoBox.getMinX(), cargoBox.getMinY(), cargoBox.getMinZ(),
+					cargoBox.getMaxX() + 1, cargoBox.getMaxY() + 1, cargoBox.getMaxZ() + 1
+				));
+			}
+
+			// Merge dropped items first, so the cost of the transfer tracks distinct content rather
+			//  than the raw entity count
+			mergeItems(world, entityBox);
+
 			var capturedEntities = new HashSet<Entity>();
 
 			for (var entity : world.getNonSpectatingEntities(Entity.class, entityBox)) {
-				var offset = rotateOffset(entity.getEntityPos().subtract(centerPos), rotation);
-				var yaw = rotateYaw(entity.getYaw(), rotation);
+				var offset = Rotations.rotateOffset(entity.getEntityPos().subtract(centerPos), rotation);
+				var yaw = Rotations.rotateYaw(entity.getYaw(), rotation);
 
 				// Players are an exception, they are truly transferred instead of being copied
 				if (entity.isPlayer()) {
@@ -148,6 +427,13 @@ public class Telebooks implements DedicatedServerModInitializer {
 					continue;
 				}
 
+				if (inPlace) {
+					liveEntities.add(new LiveEntityInfo(offset, entity));
+
+					entity.streamSelfAndPassengers().filter(Predicate.not(Entity::isPlayer)).forEach(capturedEntities::add);
+					continue;
+				}
+
 				var writer = NbtWriteView.create(ErrorReporter.EMPTY);
 
 				if (!entity.saveData(writer)) {
@@ -160,59 +446,74 @@ public class Telebooks implements DedicatedServerModInitializer {
 				entity.streamSelfAndPassengers().filter(Predicate.not(Entity::isPlayer)).forEach(capturedEntities::add);
 			}
 
-			capturedEntities.forEach(entity -> entity.remove(Entity.RemovalReason.CHANGED_DIMENSION));
+			if (!inPlace) {
+				capturedEntities.forEach(entity -> entity.remove(Entity.RemovalReason.CHANGED_DIMENSION));
+			} else if (!liveEntities.isEmpty()) {
+				sourceChunks = new BookLocation(world.getRegistryKey(), center, forward, Optional.empty()).getSurroundingChunks();
+			}
 		}
 
-		public void paste(ServerWorld world, BlockPos center, Direction forward) {
-			var right = forward.rotateYClockwise();
-
-			var rotation = switch (forward) {
-				case UP, DOWN -> throw new IllegalArgumentException();
-
-				case EAST -> BlockRotation.NONE;
-				case SOUTH -> BlockRotation.CLOCKWISE_90;
-				case WEST -> BlockRotation.CLOCKWISE_180;
-				case NORTH -> BlockRotation.COUNTERCLOCKWISE_90;
-			};
+		private static void mergeItems(WorldAccess world, Box box) {
+			var merged = new ArrayList<ItemEntity>();
 
-			var loadedEntities = new HashMap<UUID, Entity>();
-			var centerPos = center.toCenterPos();
+			for (var item : world.getNonSpectatingEntities(ItemEntity.class, box)) {
+				if (item.isRemoved() || item.hasVehicle()) {
+					continue;
+				}
 
-			for (var info : entities) {
-				var pos = centerPos.add(rotateOffset(info.offset, rotation));
+				// Merging follows the rules of vanilla - pickup delays, despawn timers and owners included
+				if (!((ItemEntityInvoker) item).invokeCanMerge()) {
+					continue;
+				}
 
-				var posList = new NbtList();
-				posList.add(NbtDouble.of(pos.getX()));
-				posList.add(NbtDouble.of(pos.getY()));
-				posList.add(NbtDouble.of(pos.getZ()));
+				for (var target : merged) {
+					// Either side may be the one absorbed
+					if (target.isRemoved()) {
+						continue;
+					}
 
-				var spawnData = info.entityData.copy();
-				spawnData.put("Pos", posList);
+					((ItemEntityInvoker) target).invokeTryMerge(item);
 
-				var entity = EntityType.loadEntityWithPassengers(spawnData, world, SpawnReason.DIMENSION_TRAVEL,loaded -> {
-					loadedEntities.put(loaded.getUuid(), loaded);
-					return loaded;
-				});
-				if (entity == null) {
-					LOGGER.warn("Failed to load copied entity");
-					continue;
+					if (item.isRemoved()) {
+						break;
+					}
 				}
 
-				// Make entity adjust to its new position
-				entity.setYaw(rotateYaw(info.yaw, rotation));
-				entity.requestTeleport(pos.getX(), pos.getY(), pos.getZ());
-
-				if (!world.spawnNewEntityAndPassengers(entity)) {
-					LOGGER.warn("Failed to spawn copied entity");
-					continue;
+				if (!item.isRemoved()) {
+					merged.add(item);
 				}
 			}
+		}
+
+		// Target of the paste in progress
+		private ServerWorld pasteWorld;
+		private Vec3d pasteCenter;
+		private BlockRotation pasteRotation;
+		private List<ChunkPos> pasteChunks;
+
+		private boolean holding = false;
+
+		private int nextEntity = 0;
+		private int nextLiveEntity = 0;
+
+		private final HashMap<UUID, Entity> loadedEntities = new HashMap<>();
+
+		// Players are moved right away, everything else follows in batches through pasteEntities
+		public void paste(ServerWorld world, BlockPos center, Direction forward) {
+			var rotation = getPasteRotation(forward);
+
+			var centerPos = center.toCenterPos();
+
+			pasteWorld = world;
+			pasteCenter = centerPos;
+			pasteRotation = rotation;
+			pasteChunks = new BookLocation(world.getRegistryKey(), center, forward, Optional.empty()).getSurroundingChunks();
 
 			var playerPosFlags = EnumSet.noneOf(PositionFlag.class);
 
 			for (var info : players) {
-				var pos = centerPos.add(rotateOffset(info.offset, rotation));
-				var yaw = rotateYaw(info.yaw, rotation);
+				var pos = centerPos.add(Rotations.rotateOffset(info.offset, rotation));
+				var yaw = Rotations.rotateYaw(info.yaw, rotation);
 
 				var player = info.player;
 
@@ -223,356 +524,3843 @@ public class Telebooks implements DedicatedServerModInitializer {
 				player.dismountVehicle();
 				player.teleport(world, pos.x, pos.y, pos.z, playerPosFlags, yaw, player.getPitch(), false);
 
+				moved++;
+
 				// NB: This is here to trigger a resync of the player experience level
 				player.addExperience(0);
 			}
+		}
 
-			for (var entry : playerPassengers.entrySet()) {
-				var vehicle = loadedEntities.get(entry.getKey());
-				if (vehicle == null) {
-					continue;
-				}
+		// Carried blocks, in the local coordinate system, and where each of them was taken from
+		private final ArrayList<BlockInfo> blocks = new ArrayList<>();
+		private final ArrayList<BlockPos> blockSources = new ArrayList<>();
 
-				// Current passenger list, players omitted. Restoring the pre-save list is
-				//  possible by inserting all players into the list at their respective
-				//  positions, and re-mounting everyone onto the vehicle
-				var passengersWithPlayers = new ArrayList<>(vehicle.getPassengerList());
+		private ServerWorld cutWorld;
 
-				for (var info : entry.getValue()) {
-					var player = world.getPlayerByUuid(info.player);
-					if (player == null) {
-						continue;
-					}
+		// Indices of the carried blocks which were placed at the destination - either all or none
+		private final BitSet blocksPlaced = new BitSet();
 
-					passengersWithPlayers.add(info.index, player);
-				}
+		// Indices of the carried blocks which had a block or fluid tick queued where they were taken
+		private final BitSet blockTicks = new BitSet();
+		private final BitSet fluidTicks = new BitSet();
 
-				passengersWithPlayers.forEach(Entity::dismountVehicle);
-				passengersWithPlayers.forEach(passenger -> passenger.startRiding(vehicle, true, false));
+		// Lecterns and the signs naming the book stay with it, and unbreakable blocks are not for carrying
+		private static boolean isCarried(ServerWorld world, BlockPos center, BlockPos pos, BlockState state) {
+			if (state.isAir() || state.isOf(Blocks.LECTERN) || isMultiBlock(state) || state.getHardness(world, pos) < 0) {
+				return false;
 			}
+
+			return !(state.getBlock() instanceof AbstractSignBlock && FlavourCache.getSignArea(center).contains(pos));
 		}
-	}
 
-	static class TransformedWorld {
-		private final World world;
-		private final BlockPos origin;
+		// Blocks are placed one cell at a time, so a door or bed could only arrive half - they stay put
+		private static boolean isMultiBlock(BlockState state) {
+			if (state.contains(Properties.DOUBLE_BLOCK_HALF) || state.contains(Properties.BED_PART)) {
+				return true;
+			}
+			if (state.contains(Properties.CHEST_TYPE) && state.get(Properties.CHEST_TYPE) != ChestType.SINGLE) {
+				return true;
+			}
+			if (state.contains(Properties.EXTENDED) && state.get(Properties.EXTENDED)) {
+				return true;
+			}
+
+			return state.isOf(Blocks.PISTON_HEAD) || state.isOf(Blocks.MOVING_PISTON);
+		}
 
-		private final BlockRotation rotationInto;
-		private final BlockRotation rotationFrom;
+		// Captures the blocks above a book, reading the chunk sections directly. Nothing is removed
+		//  until the blocks found their place at the destination, see clearBlocks.
+		public void cutBlocks(ServerWorld world, BlockPos center, Direction forward) {
+			var rotation = getCutRotation(forward);
+			var registries = world.getRegistryManager();
 
-		public TransformedWorld(World world, BlockPos origin, Direction forward) {
-			this.world = world;
-			this.origin = origin;
+			cutWorld = world;
+			var cutBox = getCargoBox(center);
 
-			this.rotationInto = switch (forward) {
-				case UP, DOWN -> throw new IllegalArgumentException();
+			var pos = new BlockPos.Mutable();
 
-				case EAST -> BlockRotation.NONE;
-				case SOUTH -> BlockRotation.COUNTERCLOCKWISE_90;
-				case WEST -> BlockRotation.CLOCKWISE_180;
-				case NORTH -> BlockRotation.CLOCKWISE_90;
-			};
-			this.rotationFrom = switch (forward) {
-				case UP, DOWN -> throw new IllegalArgumentException();
+			for (int x = cutBox.getMinX(); x <= cutBox.getMaxX(); x++) {
+				for (int z = cutBox.getMinZ(); z <= cutBox.getMaxZ(); z++) {
+					var chunk = world.getChunk(ChunkSectionPos.getSectionCoord(x), ChunkSectionPos.getSectionCoord(z));
 
-				case EAST -> BlockRotation.NONE;
-				case SOUTH -> BlockRotation.CLOCKWISE_90;
-				case WEST -> BlockRotation.CLOCKWISE_180;
-				case NORTH -> BlockRotation.COUNTERCLOCKWISE_90;
-			};
-		}
+					for (int y = cutBox.getMinY(); y <= cutBox.getMaxY(); y++) {
+						if (chunk.isOutOfHeightLimit(y)) {
+							continue;
+						}
 
-		public BlockPos localToGlobal(BlockPos pos) {
-			return pos.rotate(rotationFrom).add(origin);
-		}
-		public BlockPos localToGlobal(int x, int y, int z) {
-			return localToGlobal(new BlockPos(x, y, z));
-		}
+						var section = chunk.getSection(chunk.getSectionIndex(y));
+						if (section.isEmpty()) {
+							continue;
+						}
 
-		public BlockState getBlockState(BlockPos pos) {
-			return world.getBlockState(localToGlobal(pos)).rotate(rotationInto);
-		}
-		public BlockState getBlockState(int x, int y, int z) {
-			return getBlockState(new BlockPos(x, y, z));
-		}
-	}
+						var state = section.getBlockState(x & 15, y & 15, z & 15);
+						pos.set(x, y, z);
 
-	static Optional<Block> checkUniformFrame(World world, BlockPos center, int radius) {
-		var requiredBlock = world.getBlockState(center.add(0, 0, radius)).getBlock();
+						if (!isCarried(world, center, pos, state)) {
+							continue;
+						}
 
-		for (int off = -radius; off < radius; off++) {
-			if (!world.getBlockState(center.add(off, 0, +radius)).isOf(requiredBlock)) {
-				return Optional.empty();
-			}
-			if (!world.getBlockState(center.add(off, 0, -radius)).isOf(requiredBlock)) {
-				return Optional.empty();
-			}
-			if (!world.getBlockState(center.add(+radius, 0, off)).isOf(requiredBlock)) {
-				return Optional.empty();
-			}
-			if (!world.getBlockState(center.add(-radius, 0, off)).isOf(requiredBlock)) {
-				return Optional.empty();
-			}
-		}
+						NbtCompound nbt = null;
+						var components = ComponentMap.EMPTY;
 
-		return Optional.of(requiredBlock);
-	}
+						if (state.hasBlockEntity()) {
+							var blockEntity = chunk.getBlockEntity(pos);
 
-	static Optional<List<BlockState>> tryGetBookPattern(World world, BlockPos center, Direction forward) {
-		final int patternRadius = 1;
-		final int frameRadius = patternRadius + 1;
+							if (blockEntity != null) {
+								nbt = blockEntity.createComponentlessNbtWithIdentifyingData(registries);
+								components = blockEntity.getComponents();
+							}
+						}
 
-		// Requirement: valid patterns need a lectern with a book
-		var lectern = world.getBlockEntity(center.offset(forward, -2).up(), BlockEntityType.LECTERN);
-		if (lectern.isEmpty() || !lectern.get().hasBook()) {
-			return Optional.empty();
-		}
+						var offset = pos.subtract(center).rotate(rotation);
 
-		// Requirement: valid patterns are surrounded by a uniform material
-		var decorativeFrame = checkUniformFrame(world, center, frameRadius);
-		if (decorativeFrame.isEmpty()) {
-			return Optional.empty();
-		}
+						if (world.getBlockTickScheduler().isQueued(pos, state.getBlock())) {
+							blockTicks.set(blocks.size());
+						}
+						if (!state.getFluidState().isEmpty() && world.getFluidTickScheduler().isQueued(pos, state.getFluidState().getFluid())) {
+							fluidTicks.set(blocks.size());
+						}
 
-		// Requirement: valid patterns need an obsidian frame around them, or immediately below
-		if (decorativeFrame.get() != Blocks.OBSIDIAN) {
-			var functionalFrame = checkUniformFrame(world, center.down(), frameRadius);
-			if (functionalFrame.isEmpty() || functionalFrame.get() != Blocks.OBSIDIAN) {
-				return Optional.empty();
+						blocks.add(new BlockInfo(offset, state.rotate(rotation), nbt, components));
+						blockSources.add(pos.toImmutable());
+					}
+				}
 			}
 		}
 
-		// Actual pattern is parsed in the local coordinate system
-		var transformed = new TransformedWorld(world, center, forward);
-		var pattern = new ArrayList<BlockState>();
+		// Places the carried blocks into the air around the destination. Cargo only travels whole, when
+		//  any of it would land on something it stays behind, and whoever travels along is told.
+		public void pasteBlocks(ServerWorld world, BlockPos center, Direction forward) {
+			var rotation = getPasteRotation(forward);
 
-		for (int offX = -1; offX <= 1; offX++) {
-			for (int offZ = -1; offZ <= 1; offZ++) {
-				var pos = transformed.localToGlobal(offX, 0, offZ);
-				var state = world.getBlockState(pos);
+			var writes = new ArrayList<BlockWrite>(blocks.size());
 
-				// Requirement: patterns must be made of solid blocks
-				if (!state.isOpaqueFullCube() && !state.isFullCube(world, pos)) {
-					return Optional.empty();
-				}
+			for (var info : blocks) {
+				var pos = center.add(new BlockPos(info.offset).rotate(rotation));
 
-				// Requirement: no outside pattern block may be made of the decorative frame block
-				if (offX != 0 && offZ != 0 && state.isOf(decorativeFrame.get())) {
-					return Optional.empty();
-				}
+				writes.add(new BlockWrite(pos, info.state.rotate(rotation), info.nbt, info.components));
+			}
 
-				// Tweak: ignore individual properties of blocks, only care about the type
-				pattern.add(state.getBlock().getDefaultState());
+			blocksPlaced.clear();
+
+			for (var write : writes) {
+				if (world.isOutOfHeightLimit(write.pos) || !world.getBlockState(write.pos).isAir()) {
+					for (var info : players) {
+						info.player.sendMessage(Text.literal("The blocks above the book did not fit at the destination").formatted(Formatting.YELLOW), true);
+					}
+					return;
+				}
 			}
-		}
 
-		return Optional.of(pattern);
-	}
+			blocksPlaced.or(writeBlocks(world, writes, BlockState::isAir));
 
-	record BookLocation(RegistryKey<World> world, BlockPos center, Direction forward, Optional<String> flavour) {
-		static final Codec<BookLocation> CODEC = RecordCodecBuilder.create(instance ->
-				instance.group(
-						World.CODEC.fieldOf("world").forGetter(BookLocation::world),
-						BlockPos.CODEC.fieldOf("center").forGetter(BookLocation::center),
-						Direction.CODEC.fieldOf("forward").forGetter(BookLocation::forward),
-						Codec.STRING.optionalFieldOf("flavour").forGetter(BookLocation::flavour)
-				).apply(instance, BookLocation::new)
-		);
+			// Ticks left behind find air and do nothing. How long they had left is not exposed, so
+			//  they are due on the next tick instead.
+			for (int index = blocksPlaced.nextSetBit(0); index >= 0; index = blocksPlaced.nextSetBit(index + 1)) {
+				var write = writes.get(index);
 
-		public boolean equalsWithoutFlavour(BookLocation other) {
-			if (!world.equals(other.world)) {
-				return false;
-			}
-			if (!center.equals(other.center)) {
-				return false;
-			}
-			if (!forward.equals(other.forward)) {
-				return false;
+				if (blockTicks.get(index)) {
+					world.scheduleBlockTick(write.pos, write.state.getBlock(), 1);
+				}
+				if (fluidTicks.get(index)) {
+					world.scheduleFluidTick(write.pos, write.state.getFluidState().getFluid(), 1);
+				}
 			}
-			return true;
 		}
 
-		public Box safeArea() {
-			return new Box(center).offset(0, 1.5, 0).expand(1.45, 1.5, 1.45);
-		}
+		// Removes the blocks which made it to the destination from where they were taken
+		public void clearBlocks() {
+			if (cutWorld == null) {
+				return;
+			}
 
-		public Box activeArea() { return new Box(center).offset(0, 1.25, 0).expand(1, 1.25, 1); }
+			var writes = new ArrayList<BlockWrite>(blocksPlaced.cardinality());
+			var air = Blocks.AIR.getDefaultState();
 
-		public boolean overlaps(BookLocation other) {
-			if (world != other.world) {
-				return false;
+			for (int index = blocksPlaced.nextSetBit(0); index >= 0; index = blocksPlaced.nextSetBit(index + 1)) {
+				writes.add(new BlockWrite(blockSources.get(index), air, null, ComponentMap.EMPTY));
 			}
 
-			return safeArea().intersects(other.safeArea());
+			writeBlocks(cutWorld, writes, state -> true);
 		}
-	}
-	record BookChain(int id, List<BlockState> pattern, List<BookLocation> books) {
-		static final Codec<BookChain> CODEC = RecordCodecBuilder.create(instance ->
-				instance.group(
-						Codecs.NON_NEGATIVE_INT.fieldOf("id").forGetter(BookChain::id),
-						BlockState.CODEC.listOf().fieldOf("pattern").forGetter(BookChain::pattern),
-						BookLocation.CODEC.listOf().fieldOf("books").forGetter(BookChain::books)
-				).apply(instance, BookChain::new)
-		);
 
-		public BookChain(int id, List<BlockState> pattern) {
-			this(id, pattern, new ArrayList<>());
+		public int getBlockCount() {
+			return blocksPlaced.cardinality();
 		}
 
-		public BookChain {
-			books = new ArrayList<>(books);
-		}
-	}
-	record Database(List<BookChain> books) {
-		static final Codec<Database> CODEC = RecordCodecBuilder.create(instance ->
-			instance.group(
-					BookChain.CODEC.listOf().fieldOf("chains").forGetter(Database::books)
-			).apply(instance, Database::new)
-		);
+		record BlockWrite(BlockPos pos, BlockState state, NbtCompound nbt, ComponentMap components) {}
 
-		public Database() {
-			this(new ArrayList<>());
-		}
+		// Writes blocks straight into their chunk sections, grouped by section, instead of going
+		//  through World.setBlockState for each. Lighting is checked, points of interest are updated
+		//  and clients are synced for every written block. Blocks are replaced and added the way
+		//  pistons move them, and only neighbours outside the writes are updated - the rest were
+		//  moved together. Returns the indices of the writes made.
+		private static BitSet writeBlocks(ServerWorld world, List<BlockWrite> writes, Predicate<BlockState> canReplace) {
+			var written = new BitSet(writes.size());
+			var replaced = new BlockState[writes.size()];
 
-		public Database {
-			books = new ArrayList<>(books);
-		}
-	}
+			var sections = new Long2ObjectOpenHashMap<IntArrayList>();
+			for (int index = 0; index < writes.size(); index++) {
+				var pos = writes.get(index).pos;
 
-	static class State extends PersistentState {
-		private static final Codec<State> CODEC = new Codec<>() {
-			@Override
-			public <T> DataResult<Pair<State, T>> decode(DynamicOps<T> ops, T input) {
-				return Database.CODEC.decode(ops, input).map(pair -> {
-					var state = new State();
-					state.load(pair.getFirst());
-					return Pair.of(state, pair.getSecond());
-				});
-			}
+				if (world.isOutOfHeightLimit(pos)) {
+					continue;
+				}
 
-			@Override
-			public <T> DataResult<T> encode(State input, DynamicOps<T> ops, T prefix) {
-				return Database.CODEC.encode(input.save(), ops, prefix);
+				sections.computeIfAbsent(ChunkSectionPos.toLong(pos), key -> new IntArrayList()).add(index);
 			}
-		};
 
-		private static final PersistentStateType<State> TYPE = new PersistentStateType<>(MOD_ID, State::new, CODEC, null);
+			var registries = world.getRegistryManager();
+			var lighting = world.getChunkManager().getLightingProvider();
 
-		private static PersistentStateManager getHost(MinecraftServer server) {
-			return Objects.requireNonNull(server.getWorld(World.OVERWORLD)).getPersistentStateManager();
-		}
+			for (var entry : sections.long2ObjectEntrySet()) {
+				var sectionPos = ChunkSectionPos.from(entry.getLongKey());
 
-		public static State get(MinecraftServer server) {
-			return getHost(server).getOrCreate(TYPE);
-		}
-		public static void save(MinecraftServer server) {
-			var host = getHost(server);
+				var chunk = world.getChunk(sectionPos.getSectionX(), sectionPos.getSectionZ());
+				var section = chunk.getSection(chunk.sectionCoordToIndex(sectionPos.getSectionY()));
 
-			host.getOrCreate(TYPE).markDirty();
-			host.save();
-		}
+				boolean wasEmpty = section.isEmpty();
 
-		int nextChainID = 0;
+				for (int index : entry.getValue()) {
+					var write = writes.get(index);
+					var pos = write.pos;
 
-		final HashMap<Integer, BookChain> books = new HashMap<>();
-		final HashMap<List<BlockState>, Integer> patternToBook = new HashMap<>();
+					int localX = pos.getX() & 15;
+					int localY = pos.getY() & 15;
+					int localZ = pos.getZ() & 15;
 
-		void load(Database database) {
-			nextChainID = 0;
-			books.clear();
+					if (!canReplace.test(section.getBlockState(localX, localY, localZ))) {
+						continue;
+					}
+
+					// Block entities are dropped without their block being told, so nothing spills
+					chunk.removeBlockEntity(pos);
+
+					var previous = section.setBlockState(localX, localY, localZ, write.state, false);
+					replaced[index] = previous;
+
+					// Beds, job sites, bells and lodestones are points of interest
+					world.onBlockStateChanged(pos, previous, write.state);
+
+					for (var heightmap : chunk.getHeightmaps()) {
+						heightmap.getValue().trackUpdate(localX, pos.getY(), localZ, write.state);
+					}
+
+					if (write.nbt != null) {
+						var blockEntity = BlockEntity.createFromNbt(pos, write.state, write.nbt, registries);
+
+						if (blockEntity != null) {
+							blockEntity.setComponents(write.components);
+							chunk.addBlockEntity(blockEntity);
+						}
+					}
+
+					written.set(index);
+				}
+
+				if (wasEmpty != section.isEmpty()) {
+					lighting.setSectionStatus(sectionPos, section.isEmpty());
+				}
+
+				chunk.markNeedsSaving();
+				((StampedChunk) chunk).telebooks$markModified();
+			}
+
+			var writtenPositions = new LongOpenHashSet(written.cardinality());
+			for (int index = written.nextSetBit(0); index >= 0; index = written.nextSetBit(index + 1)) {
+				writtenPositions.add(writes.get(index).pos.asLong());
+			}
+
+			// Every write is in place before blocks are told, so they react to the volume as a whole
+			for (int index = written.nextSetBit(0); index >= 0; index = written.nextSetBit(index + 1)) {
+				var write = writes.get(index);
+				var pos = write.pos;
+				var previous = replaced[index];
+
+				lighting.checkBlock(pos);
+				world.getChunkManager().markForUpdate(pos);
+
+				// Replaced and added as moved, the way pistons do it, so containers do not spill
+				if (!previous.isOf(write.state.getBlock())) {
+					previous.onStateReplaced(world, pos, true);
+					write.state.onBlockAdded(world, pos, previous, true);
+				}
+
+				onBlockChanged(world, pos);
+			}
+
+			// Like World.setBlockState, neighbours are told which block was replaced
+			for (int index = written.nextSetBit(0); index >= 0; index = written.nextSetBit(index + 1)) {
+				var pos = writes.get(index).pos;
+
+				for (var direction : Direction.values()) {
+					var neighbour = pos.offset(direction);
+
+					if (!writtenPositions.contains(neighbour.asLong())) {
+						world.updateNeighbor(neighbour, replaced[index].getBlock(), null);
+					}
+				}
+			}
+
+			return written;
+		}
+
+		// Entities cut from their world exist only in this volume, and entities moved in place wait in
+		//  their source chunks, so both ends are kept loaded until the last of them was pasted
+		public void hold() {
+			if (holding) {
+				return;
+			}
+			holding = true;
+
+			for (var chunkPos : pasteChunks) {
+				FORCE_TICKETS.acquire(pasteWorld, chunkPos);
+			}
+			for (var chunkPos : sourceChunks) {
+				FORCE_TICKETS.acquire(sourceWorld, chunkPos);
+			}
+		}
+		public void release() {
+			if (holding) {
+				holding = false;
+
+				for (var chunkPos : pasteChunks) {
+					FORCE_TICKETS.release(pasteWorld, chunkPos);
+				}
+				for (var chunkPos : sourceChunks) {
+					FORCE_TICKETS.release(sourceWorld, chunkPos);
+				}
+			}
+
+			drained.complete(null);
+		}
+
+		// Completes once every captured entity was pasted - until then entities moved in place are
+		//  still at the source, and must not be captured again
+		final CompletableFuture<Void> drained = new CompletableFuture<>();
+
+		public boolean hasPendingEntities() {
+			return nextEntity < entities.size() || nextLiveEntity < liveEntities.size();
+		}
+
+		public int getEntityCount() {
+			return entities.size() + liveEntities.size() + players.size();
+		}
+
+		// Entities which actually arrived, passengers included, since the last call
+		private int moved = 0;
+
+		public int takeMovedCount() {
+			int count = moved;
+			moved = 0;
+			return count;
+		}
+
+		// Pastes at most the given number of captured entities - vehicles count together with their
+		//  passengers - and returns how many were pasted
+		public int pasteEntities(int limit) {
+			int pasted = 0;
+
+			while (pasted < limit && nextEntity < entities.size()) {
+				pasteEntity(entities.get(nextEntity++));
+				pasted++;
+			}
+			while (pasted < limit && nextLiveEntity < liveEntities.size()) {
+				moveEntity(liveEntities.get(nextLiveEntity++));
+				pasted++;
+			}
+
+			remountPlayers();
+
+			return pasted;
+		}
+
+		private void pasteEntity(EntityInfo info) {
+			var pos = pasteCenter.add(Rotations.rotateOffset(info.offset, pasteRotation));
+
+			var posList = new NbtList();
+			posList.add(NbtDouble.of(pos.getX()));
+			posList.add(NbtDouble.of(pos.getY()));
+			posList.add(NbtDouble.of(pos.getZ()));
+
+			var spawnData = info.entityData.copy();
+			spawnData.put("Pos", posList);
+
+			var entity = EntityType.loadEntityWithPassengers(spawnData, pasteWorld, SpawnReason.DIMENSION_TRAVEL,loaded -> {
+				loadedEntities.put(loaded.getUuid(), loaded);
+				return loaded;
+			});
+			if (entity == null) {
+				LOGGER.warn("Failed to load copied entity");
+				return;
+			}
+
+			// Make entity adjust to its new position
+			entity.setYaw(Rotations.rotateYaw(info.yaw, pasteRotation));
+			entity.requestTeleport(pos.getX(), pos.getY(), pos.getZ());
+
+			if (!pasteWorld.spawnNewEntityAndPassengers(entity)) {
+				LOGGER.warn("Failed to spawn copied entity");
+				return;
+			}
+
+			moved += (int) entity.streamSelfAndPassengers().count();
+		}
+
+		private void moveEntity(LiveEntityInfo info) {
+			var pos = pasteCenter.add(Rotations.rotateOffset(info.offset, pasteRotation));
+
+			var entity = info.entity;
+			if (entity.isRemoved()) {
+				LOGGER.warn("Entity {} was removed before it could be moved, {}", entity, entity.getRemovalReason());
+				return;
+			}
+
+			entity.streamSelfAndPassengers().filter(Predicate.not(Entity::isPlayer)).forEach(moved -> {
+				loadedEntities.put(moved.getUuid(), moved);
+
+				var yaw = Rotations.rotateYaw(moved.getYaw(), sourceRotation);
+				moved.setYaw(Rotations.rotateYaw(yaw, pasteRotation));
+
+				this.moved++;
+			});
+
+			// Passengers follow their vehicle
+			entity.requestTeleport(pos.getX(), pos.getY(), pos.getZ());
+		}
+
+		private void remountPlayers() {
+			var iterator = playerPassengers.entrySet().iterator();
+
+			while (iterator.hasNext()) {
+				var entry = iterator.next();
+
+				var vehicle = loadedEntities.get(entry.getKey());
+				if (vehicle == null) {
+					continue;
+				}
+
+				iterator.remove();
+
+				// Current passenger list, players omitted. Restoring the pre-save list is
+				//  possible by inserting all players into the list at their respective
+				//  positions, and re-mounting everyone onto the vehicle
+				var passengersWithPlayers = new ArrayList<>(vehicle.getPassengerList());
+
+				for (var info : entry.getValue()) {
+					var player = pasteWorld.getPlayerByUuid(info.player);
+					if (player == null) {
+						continue;
+					}
+
+					passengersWithPlayers.add(info.index, player);
+				}
+
+				passengersWithPlayers.forEach(Entity::dismountVehicle);
+				passengersWithPlayers.forEach(passenger -> passenger.startRiding(vehicle, true, false));
+			}
+		}
+	}
+
+	// Reads the blocks of a book straight from the chunk sections covering it, without allocating
+	//  anything per block. Only ever used from the server thread.
+	static class PatternScanner {
+		static final int PATTERN_RADIUS = 1;
+		static final int FRAME_RADIUS = PATTERN_RADIUS + 1;
+
+		// Global offsets of the pattern cells in scan order, by the ordinal of the book facing
+		private static final int[][] CELL_OFFSETS_X = new int[Direction.values().length][];
+		private static final int[][] CELL_OFFSETS_Z = new int[Direction.values().length][];
+
+		static {
+			for (var forward : new Direction[] { Direction.EAST, Direction.SOUTH, Direction.WEST, Direction.NORTH }) {
+				// Rotates local pattern coordinates into the world
+				var rotation = switch (forward) {
+					case UP, DOWN -> throw new IllegalArgumentException();
+
+					case EAST -> BlockRotation.NONE;
+					case SOUTH -> BlockRotation.CLOCKWISE_90;
+					case WEST -> BlockRotation.CLOCKWISE_180;
+					case NORTH -> BlockRotation.COUNTERCLOCKWISE_90;
+				};
+
+				var offsetsX = new int[Pattern.CELLS];
+				var offsetsZ = new int[Pattern.CELLS];
+
+				int cell = 0;
+
+				for (int offX = -PATTERN_RADIUS; offX <= PATTERN_RADIUS; offX++) {
+					for (int offZ = -PATTERN_RADIUS; offZ <= PATTERN_RADIUS; offZ++) {
+						var rotated = new BlockPos(offX, 0, offZ).rotate(rotation);
+
+						offsetsX[cell] = rotated.getX();
+						offsetsZ[cell] = rotated.getZ();
+						cell++;
+					}
+				}
+
+				CELL_OFFSETS_X[forward.ordinal()] = offsetsX;
+				CELL_OFFSETS_Z[forward.ordinal()] = offsetsZ;
+			}
+		}
+
+		// Sections covering the scanned area: up to 2x2 chunks, and 2 sections vertically
+		private final ChunkSection[] sections = new ChunkSection[8];
+
+		private int minChunkX;
+		private int minChunkZ;
+		private int minSectionY;
+
+		private final BlockPos.Mutable mutable = new BlockPos.Mutable();
+
+		// Loading a chunk may run queued server tasks, which can start a scan of their own midway
+		//  through this one - those get a scanner of their own
+		private boolean scanning = false;
+
+		private int getSlot(int chunkX, int chunkZ, int sectionY) {
+			return ((chunkX - minChunkX) * 2 + (chunkZ - minChunkZ)) * 2 + (sectionY - minSectionY);
+		}
+
+		private void resolveSections(World world, BlockPos center) {
+			minChunkX = ChunkSectionPos.getSectionCoord(center.getX() - FRAME_RADIUS);
+			minChunkZ = ChunkSectionPos.getSectionCoord(center.getZ() - FRAME_RADIUS);
+			minSectionY = ChunkSectionPos.getSectionCoord(center.getY() - 1);
+
+			int maxChunkX = ChunkSectionPos.getSectionCoord(center.getX() + FRAME_RADIUS);
+			int maxChunkZ = ChunkSectionPos.getSectionCoord(center.getZ() + FRAME_RADIUS);
+			int maxSectionY = ChunkSectionPos.getSectionCoord(center.getY() + 1);
+
+			for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+				for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+					// NB: Loads the chunk if needed, just like World.getBlockState would
+					var chunk = world.getChunk(chunkX, chunkZ);
+					var chunkSections = chunk.getSectionArray();
+
+					for (int sectionY = minSectionY; sectionY <= maxSectionY; sectionY++) {
+						int index = chunk.sectionCoordToIndex(sectionY);
+
+						if (index >= 0 && index < chunkSections.length) {
+							sections[getSlot(chunkX, chunkZ, sectionY)] = chunkSections[index];
+						}
+					}
+				}
+			}
+		}
+
+		// Supplies sections without a world around them, so scanning can be measured in isolation
+		interface SectionLookup {
+			ChunkSection getSection(int chunkX, int chunkZ, int sectionY);
+		}
+
+		private void resolveSections(SectionLookup lookup, BlockPos center) {
+			minChunkX = ChunkSectionPos.getSectionCoord(center.getX() - FRAME_RADIUS);
+			minChunkZ = ChunkSectionPos.getSectionCoord(center.getZ() - FRAME_RADIUS);
+			minSectionY = ChunkSectionPos.getSectionCoord(center.getY() - 1);
+
+			int maxChunkX = ChunkSectionPos.getSectionCoord(center.getX() + FRAME_RADIUS);
+			int maxChunkZ = ChunkSectionPos.getSectionCoord(center.getZ() + FRAME_RADIUS);
+			int maxSectionY = ChunkSectionPos.getSectionCoord(center.getY() + 1);
+
+			for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+				for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+					for (int sectionY = minSectionY; sectionY <= maxSectionY; sectionY++) {
+						sections[getSlot(chunkX, chunkZ, sectionY)] = lookup.getSection(chunkX, chunkZ, sectionY);
+					}
+				}
+			}
+		}
+
+		private BlockState getBlockState(int x, int y, int z) {
+			var section = sections[getSlot(x >> 4, z >> 4, y >> 4)];
+
+			// Outside the build limits, same as World.getBlockState
+			if (section == null) {
+				return Blocks.VOID_AIR.getDefaultState();
+			}
+
+			return section.getBlockState(x & 15, y & 15, z & 15);
+		}
+
+		// Returns the block the frame is made of, or null if it is not uniform
+		private Block checkUniformFrame(int centerX, int y, int centerZ, int radius) {
+			var requiredBlock = getBlockState(centerX, y, centerZ + radius).getBlock();
+
+			for (int off = -radius; off < radius; off++) {
+				if (!getBlockState(centerX + off, y, centerZ + radius).isOf(requiredBlock)) {
+					return null;
+				}
+				if (!getBlockState(centerX + off, y, centerZ - radius).isOf(requiredBlock)) {
+					return null;
+				}
+				if (!getBlockState(centerX + radius, y, centerZ + off).isOf(requiredBlock)) {
+					return null;
+				}
+				if (!getBlockState(centerX - radius, y, centerZ + off).isOf(requiredBlock)) {
+					return null;
+				}
+			}
+
+			return requiredBlock;
+		}
+
+		public Optional<Pattern> scan(World world, BlockPos center, Direction forward) {
+			if (scanning) {
+				return new PatternScanner().scan(world, center, forward);
+			}
+			scanning = true;
+
+			try {
+				resolveSections(world, center);
+
+				return scanResolved(world, center, forward);
+			} finally {
+				// Do not keep chunks reachable between scans
+				Arrays.fill(sections, null);
+				scanning = false;
+			}
+		}
+
+		Optional<Pattern> scan(SectionLookup lookup, BlockView view, BlockPos center, Direction forward) {
+			if (scanning) {
+				return new PatternScanner().scan(lookup, view, center, forward);
+			}
+			scanning = true;
+
+			try {
+				resolveSections(lookup, center);
+
+				return scanResolved(view, center, forward);
+			} finally {
+				Arrays.fill(sections, null);
+				scanning = false;
+			}
+		}
+
+		private Optional<Pattern> scanResolved(BlockView world, BlockPos center, Direction forward) {
+			int centerX = center.getX();
+			int centerY = center.getY();
+			int centerZ = center.getZ();
+
+			// Requirement: valid patterns need a lectern with a book
+			var lectern = getBlockState(centerX - forward.getOffsetX() * 2, centerY + 1, centerZ - forward.getOffsetZ() * 2);
+			if (!lectern.isOf(Blocks.LECTERN) || !lectern.get(LecternBlock.HAS_BOOK)) {
+				return Optional.empty();
+			}
+
+			// Requirement: valid patterns are surrounded by a uniform material
+			var decorativeFrame = checkUniformFrame(centerX, centerY, centerZ, FRAME_RADIUS);
+			if (decorativeFrame == null) {
+				return Optional.empty();
+			}
+
+			// Requirement: valid patterns need an obsidian frame around them, or immediately below
+			if (decorativeFrame != Blocks.OBSIDIAN) {
+				var functionalFrame = checkUniformFrame(centerX, centerY - 1, centerZ, FRAME_RADIUS);
+				if (functionalFrame != Blocks.OBSIDIAN) {
+					return Optional.empty();
+				}
+			}
+
+			// Actual pattern is parsed in the local coordinate system
+			var offsetsX = CELL_OFFSETS_X[forward.ordinal()];
+			var offsetsZ = CELL_OFFSETS_Z[forward.ordinal()];
+
+			var pattern = new Pattern.Builder();
+
+			for (int cell = 0; cell < Pattern.CELLS; cell++) {
+				int x = centerX + offsetsX[cell];
+				int z = centerZ + offsetsZ[cell];
+
+				var state = getBlockState(x, centerY, z);
+
+				// Requirement: patterns must be made of solid blocks
+				if (!state.isOpaqueFullCube() && !state.isFullCube(world, mutable.set(x, centerY, z))) {
+					return Optional.empty();
+				}
+
+				// Requirement: no outside pattern block may be made of the decorative frame block
+				boolean isCorner = cell == 0 || cell == 2 || cell == 6 || cell == 8;
+				if (isCorner && state.isOf(decorativeFrame)) {
+					return Optional.empty();
+				}
+
+				// Tweak: ignore individual properties of blocks, only care about the type
+				pattern.add(state.getBlock());
+			}
+
+			return Optional.of(pattern.build());
+		}
+	}
+
+	static final PatternScanner SCANNER = new PatternScanner();
+
+	// Pattern cells packed as block raw ids, three per long. Raw ids are not stable across mod sets,
+	//  so persisted patterns are still encoded as block states.
+	record Pattern(long cells0, long cells1, long cells2) {
+		static final int CELLS = 9;
+
+		private static final int CELL_BITS = 21;
+		private static final long CELL_MASK = (1L << CELL_BITS) - 1;
+
+		static final Codec<Pattern> CODEC = BlockState.CODEC.listOf().comapFlatMap(
+				states -> states.size() == CELLS
+						? DataResult.success(Pattern.of(states))
+						: DataResult.error(() -> "Pattern must have " + CELLS + " cells, got " + states.size()),
+				Pattern::toStates
+		);
+
+		static final class Builder {
+			private long cells0, cells1, cells2;
+			private int count = 0;
+
+			public void add(Block block) {
+				long bits = (Registries.BLOCK.getRawId(block) & CELL_MASK) << (count % 3 * CELL_BITS);
+
+				switch (count / 3) {
+					case 0 -> cells0 |= bits;
+					case 1 -> cells1 |= bits;
+					case 2 -> cells2 |= bits;
+					default -> throw new IllegalStateException();
+				}
+
+				count++;
+			}
+
+			public Pattern build() {
+				if (count != CELLS) {
+					throw new IllegalStateException();
+				}
+				return new Pattern(cells0, cells1, cells2);
+			}
+		}
+
+		static Pattern of(List<BlockState> states) {
+			var builder = new Builder();
+			states.forEach(state -> builder.add(state.getBlock()));
+			return builder.build();
+		}
+
+		public int rawID(int cell) {
+			long word = switch (cell / 3) {
+				case 0 -> cells0;
+				case 1 -> cells1;
+				case 2 -> cells2;
+				default -> throw new IndexOutOfBoundsException(cell);
+			};
+
+			return (int) ((word >>> (cell % 3 * CELL_BITS)) & CELL_MASK);
+		}
+
+		public Block block(int cell) {
+			return Registries.BLOCK.get(rawID(cell));
+		}
+
+		public List<BlockState> toStates() {
+			var states = new ArrayList<BlockState>(CELLS);
+
+			for (int cell = 0; cell < CELLS; cell++) {
+				states.add(block(cell).getDefaultState());
+			}
+
+			return states;
+		}
+	}
+
+	static Optional<Pattern> tryGetBookPattern(World world, BlockPos center, Direction forward) {
+		return PATTERN_CACHE.get(world, center, forward);
+	}
+
+	static Optional<Pattern> scanBookPattern(World world, BlockPos center, Direction forward) {
+		return SCANNER.scan(world, center, forward);
+	}
+
+	// Keys watching areas of blocks, bucketed by the chunks their areas touch, so looking up who is
+	//  interested in a block change only needs to consider nearby entries
+	static class AreaWatchers<K> {
+		record Area(RegistryKey<World> world, BlockBox box) {
+			void forEachChunk(LongConsumer consumer) {
+				int minChunkX = ChunkSectionPos.getSectionCoord(box.getMinX());
+				int maxChunkX = ChunkSectionPos.getSectionCoord(box.getMaxX());
+				int minChunkZ = ChunkSectionPos.getSectionCoord(box.getMinZ());
+				int maxChunkZ = ChunkSectionPos.getSectionCoord(box.getMaxZ());
+
+				for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+					for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+						consumer.accept(ChunkPos.toLong(chunkX, chunkZ));
+					}
+				}
+			}
+		}
+
+		private final HashMap<K, Area> areas = new HashMap<>();
+		private final HashMap<RegistryKey<World>, Long2ObjectOpenHashMap<ArrayList<K>>> chunks = new HashMap<>();
+
+		public void watch(K key, RegistryKey<World> world, BlockBox box) {
+			unwatch(key);
+
+			var area = new Area(world, box);
+			areas.put(key, area);
+
+			var buckets = chunks.computeIfAbsent(world, k -> new Long2ObjectOpenHashMap<>());
+			area.forEachChunk(chunk -> buckets.computeIfAbsent(chunk, k -> new ArrayList<>(1)).add(key));
+		}
+
+		public void unwatch(K key) {
+			var area = areas.remove(key);
+			if (area == null) {
+				return;
+			}
+
+			var buckets = chunks.get(area.world);
+			if (buckets == null) {
+				return;
+			}
+
+			area.forEachChunk(chunk -> {
+				var keys = buckets.get(chunk);
+				if (keys == null) {
+					return;
+				}
+
+				keys.remove(key);
+
+				if (keys.isEmpty()) {
+					buckets.remove(chunk);
+				}
+			});
+		}
+
+		// Runs on every block change in a watched chunk, and most of those concern nobody - nothing is
+		//  allocated unless a key matches. NB: Matches are collected first, so the consumer may unwatch them.
+		public void forEachWatching(RegistryKey<World> world, BlockPos pos, Consumer<K> consumer) {
+			var buckets = chunks.get(world);
+			if (buckets == null) {
+				return;
+			}
+
+			var keys = buckets.get(ChunkPos.toLong(ChunkSectionPos.getSectionCoord(pos.getX()), ChunkSectionPos.getSectionCoord(pos.getZ())));
+			if (keys == null) {
+				return;
+			}
+
+			ArrayList<K> matches = null;
+
+			for (int index = 0; index < keys.size(); index++) {
+				var key = keys.get(index);
+
+				if (areas.get(key).box.contains(pos)) {
+					if (matches == null) {
+						matches = new ArrayList<>(1);
+					}
+					matches.add(key);
+				}
+			}
+
+			if (matches != null) {
+				matches.forEach(consumer);
+			}
+		}
+
+		// NB: Returns a copy, so watchers may be removed while iterating
+		public List<K> getWatchingChunk(RegistryKey<World> world, long chunk) {
+			var buckets = chunks.get(world);
+			if (buckets == null) {
+				return List.of();
+			}
+
+			var keys = buckets.get(chunk);
+			if (keys == null) {
+				return List.of();
+			}
+
+			return List.copyOf(keys);
+		}
+
+		public void clear() {
+			areas.clear();
+			chunks.clear();
+		}
+	}
+
+	// Remembers the outcome of pattern scans - including failed ones - until a block within the
+	//  scanned footprint changes, or a chunk it touches is unloaded
+	static class PatternCache {
+		record Key(RegistryKey<World> world, BlockPos center, Direction forward) {
+			// Frames, the pattern and the lectern are all within this many blocks horizontally
+			static final int FOOTPRINT_RADIUS = 2;
+
+			BlockBox getFootprint() {
+				return new BlockBox(
+					center.getX() - FOOTPRINT_RADIUS, center.getY() - 1, center.getZ() - FOOTPRINT_RADIUS,
+					center.getX() + FOOTPRINT_RADIUS, center.getY() + 1, center.getZ() + FOOTPRINT_RADIUS
+				);
+			}
+		}
+
+		private final HashMap<Key, Optional<Pattern>> patterns = new HashMap<>();
+		private final AreaWatchers<Key> watchers = new AreaWatchers<>();
+
+		public Optional<Pattern> get(World world, BlockPos center, Direction forward) {
+			var key = new Key(world.getRegistryKey(), center.toImmutable(), forward);
+
+			var cached = patterns.get(key);
+			if (cached != null) {
+				return cached;
+			}
+
+			var pattern = scanBookPattern(world, center, forward);
+
+			patterns.put(key, pattern);
+			watchers.watch(key, key.world, key.getFootprint());
+
+			return pattern;
+		}
+
+		private void drop(Key key) {
+			patterns.remove(key);
+			watchers.unwatch(key);
+		}
+
+		public void invalidate(RegistryKey<World> world, BlockPos pos) {
+			watchers.forEachWatching(world, pos, this::drop);
+		}
+
+		public void invalidateChunk(RegistryKey<World> world, ChunkPos pos) {
+			watchers.getWatchingChunk(world, pos.toLong()).forEach(this::drop);
+		}
+
+		public void clear() {
+			patterns.clear();
+			watchers.clear();
+		}
+	}
+
+	static final PatternCache PATTERN_CACHE = new PatternCache();
+
+	// Flavour text of books, resolved from the signs already tracked by nearby chunks. Kept until a
+	//  sign near the book is edited, a block near it changes, or a chunk around it is unloaded.
+	static class FlavourCache {
+		// Signs are looked for this far from the position above the book
+		static final int HORIZONTAL_REACH = 3;
+		static final int VERTICAL_REACH = 1;
+
+		private final HashMap<BookLocation, Optional<String>> flavours = new HashMap<>();
+		private final AreaWatchers<BookLocation> watchers = new AreaWatchers<>();
+
+		static BlockBox getSignArea(BlockPos center) {
+			var origin = center.up(2);
+
+			return new BlockBox(
+				origin.getX() - HORIZONTAL_REACH, origin.getY() - VERTICAL_REACH, origin.getZ() - HORIZONTAL_REACH,
+				origin.getX() + HORIZONTAL_REACH, origin.getY() + VERTICAL_REACH, origin.getZ() + HORIZONTAL_REACH
+			);
+		}
+
+		public Optional<String> get(World world, BookLocation book) {
+			var key = book.withoutFlavour();
+
+			var cached = flavours.get(key);
+			if (cached != null) {
+				return cached;
+			}
+
+			var area = getSignArea(book.center);
+			var flavour = findFlavour(world, book.center, area);
+
+			flavours.put(key, flavour);
+			watchers.watch(key, key.world, area);
+
+			return flavour;
+		}
+
+		private static Optional<String> findFlavour(World world, BlockPos center, BlockBox area) {
+			var signs = new ArrayList<SignBlockEntity>(1);
+
+			int minChunkX = ChunkSectionPos.getSectionCoord(area.getMinX());
+			int maxChunkX = ChunkSectionPos.getSectionCoord(area.getMaxX());
+			int minChunkZ = ChunkSectionPos.getSectionCoord(area.getMinZ());
+			int maxChunkZ = ChunkSectionPos.getSectionCoord(area.getMaxZ());
+
+			for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+				for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+					for (var blockEntity : world.getChunk(chunkX, chunkZ).getBlockEntities().values()) {
+						if (blockEntity instanceof SignBlockEntity sign && area.contains(sign.getPos())) {
+							signs.add(sign);
+						}
+					}
+				}
+			}
+
+			if (signs.isEmpty()) {
+				return Optional.empty();
+			}
+
+			// With multiple signs around, the one nearest to the book wins - in the same order as
+			//  searching outwards from above the book would find them
+			var sign = signs.getFirst();
+
+			if (signs.size() > 1) {
+				var positions = new HashMap<BlockPos, SignBlockEntity>();
+				signs.forEach(candidate -> positions.put(candidate.getPos(), candidate));
+
+				for (var nearPos : BlockPos.iterateOutwards(center.up(2), HORIZONTAL_REACH, VERTICAL_REACH, HORIZONTAL_REACH)) {
+					var candidate = positions.get(nearPos);
+					if (candidate != null) {
+						sign = candidate;
+						break;
+					}
+				}
+			}
+
+			var contents = new StringBuilder();
+
+			for (var message : sign.getFrontText().getMessages(false)) {
+				contents.append(message.getString());
+				contents.append('\n');
+			}
+
+			return Optional.of(contents.toString());
+		}
+
+		private void drop(BookLocation key) {
+			flavours.remove(key);
+			watchers.unwatch(key);
+		}
+
+		public void invalidate(RegistryKey<World> world, BlockPos pos) {
+			watchers.forEachWatching(world, pos, this::drop);
+		}
+
+		public void invalidateChunk(RegistryKey<World> world, ChunkPos pos) {
+			watchers.getWatchingChunk(world, pos.toLong()).forEach(this::drop);
+		}
+
+		public void clear() {
+			flavours.clear();
+			watchers.clear();
+		}
+	}
+
+	static final FlavourCache FLAVOUR_CACHE = new FlavourCache();
+
+	// Implemented by WorldChunk through its mixin. Stamps come from a single global counter, and are
+	//  renewed whenever a block of the chunk changes, or the chunk is loaded again.
+	public interface StampedChunk {
+		long telebooks$getModificationStamp();
+
+		// For changes written around setBlockState, straight into the sections of the chunk
+		void telebooks$markModified();
+	}
+
+	private static final AtomicLong MODIFICATION_STAMPS = new AtomicLong();
+
+	public static long nextModificationStamp() {
+		return MODIFICATION_STAMPS.incrementAndGet();
+	}
+
+	// Remembers the stamps of the chunks under the footprint of books at their last successful
+	//  verification. While those are unchanged, so is the pattern, and verifying again can be skipped.
+	static class VerifiedStamps {
+		// By world, then center, then facing - looked up on every verification, so without allocating
+		private final HashMap<RegistryKey<World>, Long2ObjectOpenHashMap<long[][]>> stamps = new HashMap<>();
+
+		private long[] getKnown(BookLocation book) {
+			var centers = stamps.get(book.world);
+			if (centers == null) {
+				return null;
+			}
+
+			var facings = centers.get(book.center.asLong());
+			return facings != null ? facings[book.forward.ordinal()] : null;
+		}
+
+		private void setKnown(BookLocation book, long[] known) {
+			var centers = stamps.get(book.world);
+			if (centers == null) {
+				if (known == null) {
+					return;
+				}
+
+				centers = new Long2ObjectOpenHashMap<>();
+				stamps.put(book.world, centers);
+			}
+
+			var facings = centers.get(book.center.asLong());
+			if (facings == null) {
+				if (known == null) {
+					return;
+				}
+
+				facings = new long[Direction.values().length][];
+				centers.put(book.center.asLong(), facings);
+			}
+
+			facings[book.forward.ordinal()] = known;
+
+			if (known == null && Arrays.stream(facings).allMatch(Objects::isNull)) {
+				centers.remove(book.center.asLong());
+			}
+		}
+
+		// Stamps of the footprint chunks in a fixed order, or null if any of them is not loaded
+		private static long[] getFootprintStamps(ServerWorld world, BookLocation book) {
+			var footprint = new PatternCache.Key(book.world, book.center, book.forward).getFootprint();
+
+			int minChunkX = ChunkSectionPos.getSectionCoord(footprint.getMinX());
+			int maxChunkX = ChunkSectionPos.getSectionCoord(footprint.getMaxX());
+			int minChunkZ = ChunkSectionPos.getSectionCoord(footprint.getMinZ());
+			int maxChunkZ = ChunkSectionPos.getSectionCoord(footprint.getMaxZ());
+
+			var result = new long[(maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1)];
+			int index = 0;
+
+			for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+				for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+					var chunk = world.getChunkManager().getWorldChunk(chunkX, chunkZ);
+					if (chunk == null) {
+						return null;
+					}
+
+					result[index++] = ((StampedChunk) chunk).telebooks$getModificationStamp();
+				}
+			}
+
+			return result;
+		}
+
+		public boolean isUnchanged(ServerWorld world, BookLocation book) {
+			var known = getKnown(book);
+			if (known == null) {
+				return false;
+			}
+
+			var current = getFootprintStamps(world, book);
+			return current != null && Arrays.equals(known, current);
+		}
+
+		public void onVerified(ServerWorld world, BookLocation book) {
+			setKnown(book, getFootprintStamps(world, book));
+		}
+
+		public void forget(BookLocation book) {
+			setKnown(book, null);
+		}
+
+		public void clear() {
+			stamps.clear();
+		}
+	}
+
+	static final VerifiedStamps VERIFIED_STAMPS = new VerifiedStamps();
+
+	// Invoked by the WorldChunk mixin whenever a block state is actually changed
+	public static void onBlockChanged(ServerWorld world, BlockPos pos) {
+		PATTERN_CACHE.invalidate(world.getRegistryKey(), pos);
+		FLAVOUR_CACHE.invalidate(world.getRegistryKey(), pos);
+	}
+
+	// Invoked by the SignBlockEntity mixin whenever the text of a sign is changed
+	public static void onSignChanged(ServerWorld world, BlockPos pos) {
+		FLAVOUR_CACHE.invalidate(world.getRegistryKey(), pos);
+	}
+
+	record BookLocation(RegistryKey<World> world, BlockPos center, Direction forward, Optional<String> flavour) {
+		static final Codec<BookLocation> CODEC = RecordCodecBuilder.create(instance ->
+				instance.group(
+						World.CODEC.fieldOf("world").forGetter(BookLocation::world),
+						BlockPos.CODEC.fieldOf("center").forGetter(BookLocation::center),
+						Direction.CODEC.fieldOf("forward").forGetter(BookLocation::forward),
+						Codec.STRING.optionalFieldOf("flavour").forGetter(BookLocation::flavour)
+				).apply(instance, BookLocation::new)
+		);
+
+		public boolean equalsWithoutFlavour(BookLocation other) {
+			if (!world.equals(other.world)) {
+				return false;
+			}
+			if (!center.equals(other.center)) {
+				return false;
+			}
+			if (!forward.equals(other.forward)) {
+				return false;
+			}
+			return true;
+		}
+
+		// Identity of the location, usable as a map key regardless of flavour text
+		public BookLocation withoutFlavour() {
+			return flavour.isEmpty() ? this : new BookLocation(world, center, forward, Optional.empty());
+		}
+
+		// Chunks which need to be loaded to check the book, and to transfer entities into it
+		public List<ChunkPos> getSurroundingChunks() {
+			var chunks = new ArrayList<ChunkPos>(9);
+
+			var chunkX = ChunkSectionPos.getSectionCoord(center.getX());
+			var chunkZ = ChunkSectionPos.getSectionCoord(center.getZ());
+
+			for (int offX = -1; offX <= 1; offX++) {
+				for (int offZ = -1; offZ <= 1; offZ++) {
+					chunks.add(new ChunkPos(chunkX + offX, chunkZ + offZ));
+				}
+			}
+
+			return chunks;
+		}
+
+		// Whether every chunk the book is checked and teleported within is loaded already. Ticket levels
+		//  run ahead of loading, only a present WorldChunk can be read without loading it on the spot.
+		public boolean isResident(ServerWorld world) {
+			var chunkManager = world.getChunkManager();
+
+			for (var chunkPos : getSurroundingChunks()) {
+				if (chunkManager.getWorldChunk(chunkPos.x, chunkPos.z) == null) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		public Box safeArea() {
+			return new Box(center).offset(0, 1.5, 0).expand(1.45, 1.5, 1.45);
+		}
+
+		public Box activeArea() { return new Box(center).offset(0, 1.25, 0).expand(1, 1.25, 1); }
+
+		// Safe areas are 3.9 blocks wide and 4 blocks tall, so two of them intersect exactly when
+		//  their centers are at most this many blocks apart along every axis
+		static final int OVERLAP_REACH = 3;
+
+		public boolean overlaps(BookLocation other) {
+			if (world != other.world) {
+				return false;
+			}
+
+			// NB: Equivalent to intersecting the safe areas, without allocating them
+			return Math.abs(center.getX() - other.center.getX()) <= OVERLAP_REACH
+				&& Math.abs(center.getY() - other.center.getY()) <= OVERLAP_REACH
+				&& Math.abs(center.getZ() - other.center.getZ()) <= OVERLAP_REACH;
+		}
+	}
+	static final class BookChain {
+		static final Codec<BookChain> CODEC = RecordCodecBuilder.create(instance ->
+				instance.group(
+						Codecs.NON_NEGATIVE_INT.fieldOf("id").forGetter(BookChain::id),
+						Pattern.CODEC.fieldOf("pattern").forGetter(BookChain::pattern),
+						BookLocation.CODEC.listOf().fieldOf("books").forGetter(BookChain::books)
+				).apply(instance, BookChain::new)
+		);
+
+		final int id;
+		final Pattern pattern;
+		final List<BookLocation> books;
+
+		// Bumped whenever membership or flavour changes, so views derived from the chain know to rebuild
+		private int version;
+
+		public BookChain(int id, Pattern pattern) {
+			this(id, pattern, new ArrayList<>());
+		}
+
+		public BookChain(int id, Pattern pattern, List<BookLocation> books) {
+			this.id = id;
+			this.pattern = pattern;
+			this.books = new ArrayList<>(books);
+		}
+
+		public int id() {
+			return id;
+		}
+		public Pattern pattern() {
+			return pattern;
+		}
+		public List<BookLocation> books() {
+			return books;
+		}
+		public int version() {
+			return version;
+		}
+
+		void touch() {
+			version++;
+		}
+	}
+	record Database(List<BookChain> books) {
+		static final Codec<Database> CODEC = RecordCodecBuilder.create(instance ->
+			instance.group(
+					BookChain.CODEC.listOf().fieldOf("chains").forGetter(Database::books)
+			).apply(instance, Database::new)
+		);
+
+		public Database() {
+			this(new ArrayList<>());
+		}
+
+		public Database {
+			books = new ArrayList<>(books);
+		}
+	}
+
+	// Spatial index over the books of every chain, bucketed by the chunk their center is in
+	static class BookIndex {
+		record Entry(BookLocation book, int chainID) {}
+
+		private final HashMap<RegistryKey<World>, Long2ObjectOpenHashMap<ArrayList<Entry>>> worlds = new HashMap<>();
+
+		private static long bucketOf(BlockPos pos) {
+			return ChunkPos.toLong(ChunkSectionPos.getSectionCoord(pos.getX()), ChunkSectionPos.getSectionCoord(pos.getZ()));
+		}
+
+		private ArrayList<Entry> getBucket(BookLocation book) {
+			var buckets = worlds.get(book.world);
+			if (buckets == null) {
+				return null;
+			}
+
+			return buckets.get(bucketOf(book.center));
+		}
+
+		public void clear() {
+			worlds.clear();
+		}
+
+		public void add(BookLocation book, int chainID) {
+			var buckets = worlds.computeIfAbsent(book.world, key -> new Long2ObjectOpenHashMap<>());
+			var bucket = buckets.computeIfAbsent(bucketOf(book.center), key -> new ArrayList<>(1));
+
+			bucket.removeIf(entry -> entry.book.equalsWithoutFlavour(book));
+			bucket.add(new Entry(book, chainID));
+		}
+
+		public void remove(BookLocation book) {
+			var buckets = worlds.get(book.world);
+			if (buckets == null) {
+				return;
+			}
+
+			var key = bucketOf(book.center);
+
+			var bucket = buckets.get(key);
+			if (bucket == null) {
+				return;
+			}
+
+			bucket.removeIf(entry -> entry.book.equalsWithoutFlavour(book));
+
+			if (bucket.isEmpty()) {
+				buckets.remove(key);
+			}
+		}
+
+		public Optional<Entry> find(BookLocation book) {
+			var bucket = getBucket(book);
+			if (bucket == null) {
+				return Optional.empty();
+			}
+
+			for (var entry : bucket) {
+				if (entry.book.equalsWithoutFlavour(book)) {
+					return Optional.of(entry);
+				}
+			}
+
+			return Optional.empty();
+		}
+
+		public List<Entry> findOverlapping(BookLocation book) {
+			var buckets = worlds.get(book.world);
+			if (buckets == null) {
+				return List.of();
+			}
+
+			var result = new ArrayList<Entry>(0);
+
+			int reach = BookLocation.OVERLAP_REACH;
+
+			int minChunkX = ChunkSectionPos.getSectionCoord(book.center.getX() - reach);
+			int maxChunkX = ChunkSectionPos.getSectionCoord(book.center.getX() + reach);
+			int minChunkZ = ChunkSectionPos.getSectionCoord(book.center.getZ() - reach);
+			int maxChunkZ = ChunkSectionPos.getSectionCoord(book.center.getZ() + reach);
+
+			for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+				for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+					var bucket = buckets.get(ChunkPos.toLong(chunkX, chunkZ));
+					if (bucket == null) {
+						continue;
+					}
+
+					for (var entry : bucket) {
+						if (book.overlaps(entry.book)) {
+							result.add(entry);
+						}
+					}
+				}
+			}
+
+			return result;
+		}
+
+		// Active areas reach one block past their center horizontally, so only the buckets of the
+		//  neighbouring blocks need to be searched
+		public Optional<Entry> findContaining(RegistryKey<World> world, Vec3d pos) {
+			var buckets = worlds.get(world);
+			if (buckets == null) {
+				return Optional.empty();
+			}
+
+			var blockPos = BlockPos.ofFloored(pos);
+
+			int minChunkX = ChunkSectionPos.getSectionCoord(blockPos.getX() - 1);
+			int maxChunkX = ChunkSectionPos.getSectionCoord(blockPos.getX() + 1);
+			int minChunkZ = ChunkSectionPos.getSectionCoord(blockPos.getZ() - 1);
+			int maxChunkZ = ChunkSectionPos.getSectionCoord(blockPos.getZ() + 1);
+
+			for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+				for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+					var bucket = buckets.get(ChunkPos.toLong(chunkX, chunkZ));
+					if (bucket == null) {
+						continue;
+					}
+
+					for (var entry : bucket) {
+						if (entry.book.activeArea().contains(pos)) {
+							return Optional.of(entry);
+						}
+					}
+				}
+			}
+
+			return Optional.empty();
+		}
+	}
+
+	// Binary telebook storage. A snapshot of every chain, followed by a journal of the changes made
+	//  since. The journal is only ever appended to, until compaction folds it into a new snapshot.
+	//
+	// Snapshot (gzip): magic, format, generation, next chain id, block palette, world palette, chains, routes
+	// Journal: magic, format, generation, then length prefixed records. The journal only applies to
+	//  the snapshot of the same generation, so one left behind by an interrupted compaction is ignored.
+	//
+	// Format 2 added route statistics. A format 1 snapshot is the same without its routes section, it
+	//  is read as one without statistics and compacted into the current format by the next flush.
+	static class BookStore {
+		static final int SNAPSHOT_MAGIC = 0x54424B53; // TBKS
+		static final int JOURNAL_MAGIC = 0x54424B4A; // TBKJ
+		static final int FORMAT = 2;
+
+		// Magic, format and generation
+		static final int JOURNAL_HEADER_SIZE = Integer.BYTES * 2 + Long.BYTES;
+
+		static final byte RECORD_CHAIN = 1;
+		static final byte RECORD_ADD = 2;
+		static final byte RECORD_UPDATE = 3;
+		static final byte RECORD_REMOVE = 4;
+		static final byte RECORD_ROUTE = 5;
+
+		record RouteEntry(BookLocation source, BookLocation destination, int arrivals, int failures, long lastUsed) {}
+
+		record Snapshot(long generation, int nextChainID, List<BookChain> chains, List<RouteEntry> routes) {}
+
+		// Everything read back from a store, as plain data. Reading needs neither a server nor a State,
+		//  the State of a running server is built from this afterwards.
+		static class Contents {
+			int format = FORMAT;
+			long generation = 0;
+			int nextChainID = 0;
+
+			// Journal records replayed on top of the snapshot
+			int journalRecords = 0;
+
+			final LinkedHashMap<Integer, BookChain> chains = new LinkedHashMap<>();
+			final LinkedHashMap<State.Route, RouteEntry> routes = new LinkedHashMap<>();
+
+			void addChain(BookChain chain) {
+				nextChainID = Math.max(nextChainID, chain.id + 1);
+				chains.put(chain.id, chain);
+			}
+
+			// Membership follows the same rules as in the State, so a replayed journal ends up where
+			//  the server left off
+			void addBook(BookChain chain, BookLocation book) {
+				chain.books.add(book);
+			}
+			void updateBook(BookChain chain, BookLocation book) {
+				chain.books.replaceAll(loc -> loc.equalsWithoutFlavour(book) ? book : loc);
+			}
+			boolean removeBook(BookChain chain, BookLocation book) {
+				if (!chain.books.removeIf(book::equalsWithoutFlavour)) {
+					return false;
+				}
+
+				// NB: Scans every route, only a journal since the last compaction is replayed this way
+				var key = book.withoutFlavour();
+				routes.keySet().removeIf(route -> route.source().equals(key) || route.destination().equals(key));
+				return true;
+			}
+
+			void setRoute(RouteEntry route) {
+				routes.put(new State.Route(route.source.withoutFlavour(), route.destination.withoutFlavour()), route);
+			}
+
+			Snapshot toSnapshot(long generation) {
+				return new Snapshot(generation, nextChainID, new ArrayList<>(chains.values()), new ArrayList<>(routes.values()));
+			}
+		}
+
+		static Path getDirectory(MinecraftServer server) {
+			return server.getSavePath(WorldSavePath.ROOT).resolve("data").resolve(MOD_ID);
+		}
+		static Path getSnapshotFile(Path directory) {
+			return directory.resolve("store.bin");
+		}
+		static Path getJournalFile(Path directory) {
+			return directory.resolve("journal.bin");
+		}
+
+		static void writeLocation(DataOutput out, BookLocation loc) throws IOException {
+			out.writeUTF(loc.world.getValue().toString());
+			writePosition(out, loc);
+		}
+		// Location without its world, for when that is stored through a palette
+		static void writePosition(DataOutput out, BookLocation loc) throws IOException {
+			out.writeInt(loc.center.getX());
+			out.writeInt(loc.center.getY());
+			out.writeInt(loc.center.getZ());
+			out.writeByte(loc.forward.ordinal());
+			out.writeBoolean(loc.flavour.isPresent());
+
+			if (loc.flavour.isPresent()) {
+				out.writeUTF(loc.flavour.get());
+			}
+		}
+		static BookLocation readLocation(DataInput in, RegistryKey<World> world) throws IOException {
+			var center = new BlockPos(in.readInt(), in.readInt(), in.readInt());
+			var forward = Direction.values()[in.readByte()];
+			var flavour = in.readBoolean() ? Optional.of(in.readUTF()) : Optional.<String>empty();
+
+			return new BookLocation(world, center, forward, flavour);
+		}
+		static BookLocation readLocation(DataInput in) throws IOException {
+			return readLocation(in, readWorld(in.readUTF()));
+		}
+
+		static RegistryKey<World> readWorld(String id) {
+			return RegistryKey.of(RegistryKeys.WORLD, Identifier.of(id));
+		}
+
+		static void writeSnapshot(Path directory, Snapshot snapshot) throws IOException {
+			var file = getSnapshotFile(directory);
+			var temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+			// Patterns and locations refer to blocks and worlds through palettes
+			var blocks = new Object2IntOpenHashMap<Block>();
+			var worlds = new Object2IntOpenHashMap<RegistryKey<World>>();
+
+			for (var chain : snapshot.chains) {
+				for (int cell = 0; cell < Pattern.CELLS; cell++) {
+					blocks.putIfAbsent(chain.pattern.block(cell), blocks.size());
+				}
+				for (var loc : chain.books) {
+					worlds.putIfAbsent(loc.world, worlds.size());
+				}
+			}
+			for (var route : snapshot.routes) {
+				worlds.putIfAbsent(route.source.world, worlds.size());
+				worlds.putIfAbsent(route.destination.world, worlds.size());
+			}
+
+			Files.createDirectories(directory);
+
+			try (var out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(temp))))) {
+				out.writeInt(SNAPSHOT_MAGIC);
+				out.writeInt(FORMAT);
+				out.writeLong(snapshot.generation);
+				out.writeInt(snapshot.nextChainID);
+
+				var blockPalette = new Block[blocks.size()];
+				blocks.forEach((block, index) -> blockPalette[index] = block);
+
+				out.writeInt(blockPalette.length);
+				for (var block : blockPalette) {
+					out.writeUTF(Registries.BLOCK.getId(block).toString());
+				}
+
+				var worldPalette = new ArrayList<RegistryKey<World>>(Collections.nCopies(worlds.size(), null));
+				worlds.forEach((world, index) -> worldPalette.set(index, world));
+
+				out.writeInt(worldPalette.size());
+				for (var world : worldPalette) {
+					out.writeUTF(world.getValue().toString());
+				}
+
+				out.writeInt(snapshot.chains.size());
+				for (var chain : snapshot.chains) {
+					out.writeInt(chain.id);
+
+					for (int cell = 0; cell < Pattern.CELLS; cell++) {
+						out.writeInt(blocks.getInt(chain.pattern.block(cell)));
+					}
+
+					out.writeInt(chain.books.size());
+					for (var loc : chain.books) {
+						out.writeInt(worlds.getInt(loc.world));
+						writePosition(out, loc);
+					}
+				}
+
+				out.writeInt(snapshot.routes.size());
+				for (var route : snapshot.routes) {
+					out.writeInt(worlds.getInt(route.source.world));
+					writePosition(out, route.source);
+					out.writeInt(worlds.getInt(route.destination.world));
+					writePosition(out, route.destination);
+
+					out.writeInt(route.arrivals);
+					out.writeInt(route.failures);
+					out.writeLong(route.lastUsed);
+				}
+			}
+
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+			// Start an empty journal for the new generation
+			var journal = getJournalFile(directory);
+			var journalTemp = journal.resolveSibling(journal.getFileName() + ".tmp");
+
+			try (var out = new DataOutputStream(Files.newOutputStream(journalTemp))) {
+				out.writeInt(JOURNAL_MAGIC);
+				out.writeInt(FORMAT);
+				out.writeLong(snapshot.generation);
+			}
+
+			Files.move(journalTemp, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+
+		// Reads the snapshot of a store, and replays its journal on top
+		static Contents read(Path directory) throws IOException {
+			var contents = readSnapshot(directory);
+			contents.journalRecords = replayJournal(directory, contents);
+			return contents;
+		}
+
+		static Contents readSnapshot(Path directory) throws IOException {
+			var contents = new Contents();
+
+			try (var in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(getSnapshotFile(directory)))))) {
+				if (in.readInt() != SNAPSHOT_MAGIC) {
+					throw new IOException("Unrecognized telebook store");
+				}
+
+				int format = in.readInt();
+				if (format < 1 || format > FORMAT) {
+					throw new IOException("Unsupported telebook store format " + format);
+				}
+
+				contents.format = format;
+				contents.generation = in.readLong();
+				contents.nextChainID = in.readInt();
+
+				var blockPalette = new Block[in.readInt()];
+				for (int index = 0; index < blockPalette.length; index++) {
+					blockPalette[index] = Registries.BLOCK.get(Identifier.of(in.readUTF()));
+				}
+
+				var worldPalette = new ArrayList<RegistryKey<World>>();
+				for (int count = in.readInt(); count > 0; count--) {
+					worldPalette.add(readWorld(in.readUTF()));
+				}
+
+				for (int chainCount = in.readInt(); chainCount > 0; chainCount--) {
+					int id = in.readInt();
+
+					var pattern = new Pattern.Builder();
+					for (int cell = 0; cell < Pattern.CELLS; cell++) {
+						pattern.add(blockPalette[in.readInt()]);
+					}
+
+					var chain = new BookChain(id, pattern.build());
+					contents.addChain(chain);
+
+					for (int bookCount = in.readInt(); bookCount > 0; bookCount--) {
+						var world = worldPalette.get(in.readInt());
+						contents.addBook(chain, readLocation(in, world));
+					}
+				}
+
+				if (format >= 2) {
+					for (int routeCount = in.readInt(); routeCount > 0; routeCount--) {
+						var source = readLocation(in, worldPalette.get(in.readInt()));
+						var destination = readLocation(in, worldPalette.get(in.readInt()));
+
+						contents.setRoute(new RouteEntry(source, destination, in.readInt(), in.readInt(), in.readLong()));
+					}
+				}
+			}
+
+			return contents;
+		}
+
+		// Returns the number of records applied
+		static int replayJournal(Path directory, Contents contents) throws IOException {
+			var journal = getJournalFile(directory);
+			if (!Files.exists(journal)) {
+				return 0;
+			}
+
+			int records = 0;
+
+			long size = Files.size(journal);
+			long valid = JOURNAL_HEADER_SIZE;
+
+			try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journal)))) {
+				if (in.readInt() != JOURNAL_MAGIC || in.readInt() > FORMAT || in.readLong() != contents.generation) {
+					LOGGER.warn("Ignoring telebook journal of a different generation");
+					return 0;
+				}
+
+				while (valid < size) {
+					byte[] record;
+
+					try {
+						int length = in.readInt();
+
+						// A length running past the end belongs to a torn record as well
+						if (length < 0 || length > size - valid - Integer.BYTES) {
+							break;
+						}
+
+						record = new byte[length];
+						in.readFully(record);
+					} catch (EOFException e) {
+						break;
+					}
+
+					applyRecord(new DataInputStream(new ByteArrayInputStream(record)), contents);
+
+					valid += Integer.BYTES + record.length;
+					records++;
+				}
+			}
+
+			// Whatever follows the last whole record was torn by a crash mid-write. It has to go,
+			//  otherwise records appended later would land behind it, out of reach.
+			if (valid < size) {
+				LOGGER.warn("Discarding {} bytes of a torn telebook journal record", size - valid);
+
+				try (var channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+					channel.truncate(valid);
+				}
+			}
+
+			return records;
+		}
+
+		private static void applyRecord(DataInput in, Contents contents) throws IOException {
+			switch (in.readByte()) {
+				case RECORD_CHAIN -> {
+					int id = in.readInt();
+
+					var pattern = new Pattern.Builder();
+					for (int cell = 0; cell < Pattern.CELLS; cell++) {
+						pattern.add(Registries.BLOCK.get(Identifier.of(in.readUTF())));
+					}
+
+					contents.addChain(new BookChain(id, pattern.build()));
+				}
+				case RECORD_ADD -> {
+					var chain = contents.chains.get(in.readInt());
+					var loc = readLocation(in);
+
+					if (chain != null) {
+						contents.addBook(chain, loc);
+					}
+				}
+				case RECORD_UPDATE -> {
+					var chain = contents.chains.get(in.readInt());
+					var loc = readLocation(in);
+
+					if (chain != null) {
+						contents.updateBook(chain, loc);
+					}
+				}
+				case RECORD_REMOVE -> {
+					var chain = contents.chains.get(in.readInt());
+					var loc = readLocation(in);
+
+					if (chain != null) {
+						contents.removeBook(chain, loc);
+					}
+				}
+				case RECORD_ROUTE -> {
+					var source = readLocation(in);
+					var destination = readLocation(in);
+
+					contents.setRoute(new RouteEntry(source, destination, in.readInt(), in.readInt(), in.readLong()));
+				}
+				default -> throw new IOException("Unrecognized telebook journal record");
+			}
+		}
+
+		static void appendJournal(Path directory, byte[] records) throws IOException {
+			Files.write(getJournalFile(directory), records, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		}
+	}
+
+	static class State {
+		private static State loaded;
+
+		public static State get(MinecraftServer server) {
+			if (loaded == null || loaded.server != server) {
+				// Cached pages refer to the chains of the previous state
+				PICKER_PAGES.clear();
+
+				loaded = load(server);
+			}
+			return loaded;
+		}
+
+		public static void unload() {
+			loaded = null;
+			PICKER_PAGES.clear();
+		}
+
+		private static State load(MinecraftServer server) {
+			var directory = BookStore.getDirectory(server);
+
+			// NB: A store which fails to load is left alone, instead of being replaced by an empty one
+			try {
+				if (Files.exists(BookStore.getSnapshotFile(directory))) {
+					return read(server, directory);
+				}
+
+				var state = new State(server, directory);
+
+				migrateLegacy(server, state);
+
+				state.compact();
+				return state;
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to load telebook store", e);
+			}
+		}
+
+		private static State read(MinecraftServer server, Path directory) throws IOException {
+			var contents = BookStore.read(directory);
+
+			var state = new State(server, directory);
+			state.load(contents);
+
+			state.generation = contents.generation;
+			state.journalRecords = contents.journalRecords;
+
+			if (contents.format < BookStore.FORMAT) {
+				LOGGER.info("Migrating telebook store from format {} to {}", contents.format, BookStore.FORMAT);
+				state.compactRequested.set(true);
+			}
+
+			return state;
+		}
+
+		private static Path getLegacyFile(MinecraftServer server) {
+			return server.getSavePath(WorldSavePath.ROOT).resolve("data").resolve(MOD_ID + ".dat");
+		}
+
+		// Older versions kept every chain as a PersistentState of the overworld
+		private static void migrateLegacy(MinecraftServer server, State state) throws IOException {
+			var file = getLegacyFile(server);
+			if (!Files.exists(file)) {
+				return;
+			}
+
+			var nbt = NbtIo.readCompressed(file, NbtSizeTracker.ofUnlimitedBytes());
+			var database = Database.CODEC.parse(NbtOps.INSTANCE, nbt.getCompoundOrEmpty("data")).getOrThrow(IOException::new);
+
+			var contents = new BookStore.Contents();
+			database.books.forEach(contents::addChain);
+
+			state.load(contents);
+
+			LOGGER.info("Migrating {} telebook chains to the new store", database.books.size());
+		}
+
+		static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+			var thread = new Thread(runnable, "Telebooks-IO");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		// Writes are chained, so they land on disk in the same order as they were recorded
+		private static CompletableFuture<Void> pendingWrite = CompletableFuture.completedFuture(null);
+
+		// Appends the changes recorded since the last flush to the journal, or folds everything into a
+		//  new snapshot once the journal grew long enough
+		public static CompletableFuture<Void> flush(MinecraftServer server) {
+			var state = get(server);
+
+			if (state.compactRequested.get() || state.journalRecords >= CONFIG.persistence().compactAfter()) {
+				return state.compact();
+			}
+
+			state.recordDirtyRoutes();
+
+			if (state.pending.size() == 0) {
+				return pendingWrite;
+			}
+
+			var records = state.pending.toByteArray();
+			state.pending.reset();
+
+			return write(state, () -> BookStore.appendJournal(state.directory, records));
+		}
+
+		private CompletableFuture<Void> compact() {
+			// Chains are copied on the server thread, encoding happens on the writer
+			var chains = new ArrayList<BookChain>(books.size());
+			for (var chain : books.values()) {
+				chains.add(new BookChain(chain.id, chain.pattern, chain.books));
+			}
+
+			var routeEntries = new ArrayList<BookStore.RouteEntry>();
+			routes.forEach((source, destinations) -> destinations.forEach((destination, stats) -> {
+				routeEntries.add(new BookStore.RouteEntry(source, destination, stats.arrivals, stats.failures, stats.lastUsed));
+			}));
+
+			var snapshot = new BookStore.Snapshot(++generation, nextChainID, chains, routeEntries);
+
+			dirtyRoutes.clear();
+			pending.reset();
+			journalRecords = 0;
+			compactRequested.set(false);
+
+			var legacy = getLegacyFile(server);
+
+			return write(this, () -> {
+				BookStore.writeSnapshot(directory, snapshot);
+
+				if (Files.exists(legacy)) {
+					Files.move(legacy, legacy.resolveSibling(legacy.getFileName() + ".migrated"), StandardCopyOption.REPLACE_EXISTING);
+				}
+			});
+		}
+
+		interface IOTask {
+			void run() throws IOException;
+		}
+
+		private static CompletableFuture<Void> write(State state, IOTask task) {
+			pendingWrite = pendingWrite.thenRunAsync(() -> {
+				var saving = METRICS.begin(TeleportMetrics.Phase.SAVE, -1);
+
+				// NB: Nothing may escape, an exceptionally completed write would skip every later one
+				try {
+					task.run();
+					saving.end();
+				} catch (IOException | RuntimeException e) {
+					LOGGER.error("Failed to save telebook state", e);
+
+					// Whatever did not make it to disk is covered by a fresh snapshot. Set from here, as the
+					//  server thread may be stopping and no longer run queued tasks.
+					state.compactRequested.set(true);
+				}
+			}, WRITER);
+
+			return pendingWrite;
+		}
+
+		final MinecraftServer server;
+		final Path directory;
+
+		long generation = 0;
+
+		// Changes recorded since the last flush, and since the last snapshot
+		private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+		private int journalRecords = 0;
+
+		private final AtomicBoolean compactRequested = new AtomicBoolean();
+
+		int nextChainID = 0;
+
+		final HashMap<Integer, BookChain> books = new HashMap<>();
+		final Object2IntOpenHashMap<Pattern> patternToBook = new Object2IntOpenHashMap<>();
+
+		{
+			patternToBook.defaultReturnValue(-1);
+		}
+
+		final BookIndex index = new BookIndex();
+
+		// Usage of the routes taken between books, by source and then destination. Counters are bumped
+		//  in place, and only journaled once per flush, with their absolute values.
+		static class RouteStats {
+			int arrivals;
+			int failures;
+			long lastUsed;
+		}
+
+		record Route(BookLocation source, BookLocation destination) {}
+
+		final HashMap<BookLocation, HashMap<BookLocation, RouteStats>> routes = new HashMap<>();
+
+		// Sources of the routes leading to each destination, so removing a book does not have to
+		//  look through every route
+		private final HashMap<BookLocation, HashSet<BookLocation>> routeSources = new HashMap<>();
+		private final HashSet<Route> dirtyRoutes = new HashSet<>();
+
+		State(MinecraftServer server, Path directory) {
+			this.server = server;
+			this.directory = directory;
+		}
+
+		interface RecordWriter {
+			void write(DataOutput out) throws IOException;
+		}
+
+		private void record(byte type, RecordWriter writer) {
+			try {
+				var bytes = new ByteArrayOutputStream();
+				var out = new DataOutputStream(bytes);
+
+				out.writeByte(type);
+				writer.write(out);
+
+				new DataOutputStream(pending).writeInt(bytes.size());
+				bytes.writeTo(pending);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+
+			journalRecords++;
+		}
+
+		// Takes over what was read from the store, without journaling any of it again
+		void load(BookStore.Contents contents) {
+			nextChainID = contents.nextChainID;
+			books.clear();
 			patternToBook.clear();
+			index.clear();
+
+			for (var book : contents.chains.values()) {
+				books.put(book.id, book);
+				patternToBook.put(book.pattern, book.id);
+
+				for (var loc : book.books) {
+					index.add(loc, book.id);
+				}
+			}
+
+			for (var route : contents.routes.values()) {
+				setRoute(route.source(), route.destination(), route.arrivals(), route.failures(), route.lastUsed());
+			}
+		}
+
+		BookChain createBookChain(int id, Pattern pattern) {
+			var chain = new BookChain(id, pattern);
+
+			nextChainID = Math.max(nextChainID, id + 1);
+			books.put(id, chain);
+			patternToBook.put(pattern, id);
+
+			record(BookStore.RECORD_CHAIN, out -> {
+				out.writeInt(id);
+
+				for (int cell = 0; cell < Pattern.CELLS; cell++) {
+					out.writeUTF(Registries.BLOCK.getId(pattern.block(cell)).toString());
+				}
+			});
+
+			return chain;
+		}
+
+		public BookChain getOrCreateBookChain(Pattern pattern) {
+			var existingID = patternToBook.getInt(pattern);
+			if (existingID < 0) {
+				return createBookChain(nextChainID, pattern);
+			}
+
+			return books.get(existingID);
+		}
+
+		public Optional<BookChain> getOwningChain(BookLocation book) {
+			return index.find(book).map(entry -> books.get(entry.chainID()));
+		}
+
+		// Chain membership must be changed through these, so the index stays in sync
+		public void addBook(BookChain chain, BookLocation book) {
+			chain.books.add(book);
+			chain.touch();
+			PICKER_PAGES.invalidate(chain);
+			index.add(book, chain.id);
+
+			record(BookStore.RECORD_ADD, out -> {
+				out.writeInt(chain.id);
+				BookStore.writeLocation(out, book);
+			});
+		}
+		public void updateBook(BookChain chain, BookLocation book) {
+			chain.books.replaceAll(loc -> loc.equalsWithoutFlavour(book) ? book : loc);
+			chain.touch();
+			PICKER_PAGES.invalidate(chain);
+			VERIFIED_STAMPS.forget(book);
+			index.add(book, chain.id);
+
+			record(BookStore.RECORD_UPDATE, out -> {
+				out.writeInt(chain.id);
+				BookStore.writeLocation(out, book);
+			});
+		}
+		public boolean removeBook(BookChain chain, BookLocation book) {
+			if (!chain.books.removeIf(book::equalsWithoutFlavour)) {
+				return false;
+			}
+			chain.touch();
+			PICKER_PAGES.invalidate(chain);
+			VERIFIED_STAMPS.forget(book);
+
+			// Legacy data may list the same spot under multiple chains, only drop our own entry
+			if (index.find(book).filter(entry -> entry.chainID() == chain.id).isPresent()) {
+				index.remove(book);
+			}
+
+			// Routes from and to the book go with it
+			var key = book.withoutFlavour();
+
+			var destinations = routes.remove(key);
+			if (destinations != null) {
+				for (var destination : destinations.keySet()) {
+					removeRouteSource(destination, key);
+				}
+			}
+
+			var sources = routeSources.remove(key);
+			if (sources != null) {
+				for (var source : sources) {
+					var fromSource = routes.get(source);
+
+					if (fromSource != null && fromSource.remove(key) != null && fromSource.isEmpty()) {
+						routes.remove(source);
+					}
+				}
+			}
+
+			record(BookStore.RECORD_REMOVE, out -> {
+				out.writeInt(chain.id);
+				BookStore.writeLocation(out, book);
+			});
+			return true;
+		}
+
+		// Game time is persisted with the world, unlike the tick counter of the server
+		private long getTime() {
+			return server.getOverworld().getTime();
+		}
+
+		private RouteStats getOrCreateRoute(BookLocation source, BookLocation destination) {
+			var sourceKey = source.withoutFlavour();
+			var destinationKey = destination.withoutFlavour();
+
+			var destinations = routes.computeIfAbsent(sourceKey, key -> new HashMap<>());
+
+			var stats = destinations.get(destinationKey);
+			if (stats == null) {
+				stats = new RouteStats();
+				destinations.put(destinationKey, stats);
+
+				routeSources.computeIfAbsent(destinationKey, key -> new HashSet<>()).add(sourceKey);
+			}
+
+			return stats;
+		}
+
+		private void removeRouteSource(BookLocation destination, BookLocation source) {
+			var sources = routeSources.get(destination);
+
+			if (sources != null && sources.remove(source) && sources.isEmpty()) {
+				routeSources.remove(destination);
+			}
+		}
+
+		// Books pruned while a teleport was underway are gone from their chain, keep their routes gone too
+		private boolean isRegistered(BookLocation source, BookLocation destination) {
+			return index.find(source).isPresent() && index.find(destination).isPresent();
+		}
+
+		public void onArrival(BookLocation source, BookLocation destination) {
+			if (!isRegistered(source, destination)) {
+				return;
+			}
+
+			var stats = getOrCreateRoute(source, destination);
+
+			stats.arrivals++;
+			stats.lastUsed = getTime();
+
+			dirtyRoutes.add(new Route(source.withoutFlavour(), destination.withoutFlavour()));
+		}
+
+		public void onFailure(BookLocation source, BookLocation destination) {
+			if (!isRegistered(source, destination)) {
+				return;
+			}
+
+			getOrCreateRoute(source, destination).failures++;
+
+			dirtyRoutes.add(new Route(source.withoutFlavour(), destination.withoutFlavour()));
+		}
+
+		public Map<BookLocation, RouteStats> getRoutesFrom(BookLocation source) {
+			var destinations = routes.get(source.withoutFlavour());
+			return destinations != null ? destinations : Map.of();
+		}
+
+		void setRoute(BookLocation source, BookLocation destination, int arrivals, int failures, long lastUsed) {
+			var stats = getOrCreateRoute(source, destination);
+
+			stats.arrivals = arrivals;
+			stats.failures = failures;
+			stats.lastUsed = lastUsed;
+		}
+
+		private static String describe(BookLocation loc) {
+			return loc.world.getValue() + " " + loc.center.toShortString();
+		}
+
+		public List<String> describeTopRoutes(int count) {
+			var top = new ArrayList<Map.Entry<Route, RouteStats>>();
+
+			routes.forEach((source, destinations) -> destinations.forEach((destination, stats) -> {
+				top.add(Map.entry(new Route(source, destination), stats));
+			}));
+
+			top.sort(Comparator.comparingInt((Map.Entry<Route, RouteStats> entry) -> entry.getValue().arrivals).reversed());
+
+			var lines = new ArrayList<String>();
+			lines.add(String.format("Top routes of %d", top.size()));
+
+			long now = getTime();
+
+			for (var entry : top.subList(0, Math.min(count, top.size()))) {
+				var route = entry.getKey();
+				var stats = entry.getValue();
+
+				lines.add(String.format("  %s -> %s: %d arrivals, %d failures, last used %d ticks ago",
+					describe(route.source), describe(route.destination), stats.arrivals, stats.failures, now - stats.lastUsed));
+			}
+
+			return lines;
+		}
+
+		// Books nobody arrived at or departed from within the given number of ticks, or ever if negative.
+		//  Only the first few are listed, there can be thousands.
+		public List<String> describeDeadBooks(long idleTicks, int count) {
+			var alive = new HashSet<BookLocation>();
+			var failures = new Object2IntOpenHashMap<BookLocation>();
+
+			long now = getTime();
+
+			routes.forEach((source, destinations) -> destinations.forEach((destination, stats) -> {
+				if (stats.arrivals > 0 && (idleTicks < 0 || now - stats.lastUsed <= idleTicks)) {
+					alive.add(source);
+					alive.add(destination);
+				}
+
+				failures.addTo(destination, stats.failures);
+			}));
+
+			var lines = new ArrayList<String>();
+			int dead = 0;
+
+			for (var chain : books.values()) {
+				for (var book : chain.books) {
+					var key = book.withoutFlavour();
+
+					if (alive.contains(key)) {
+						continue;
+					}
+
+					if (dead++ < count) {
+						lines.add(String.format("  %s (chain %d): %d failed arrivals", describe(book), chain.id, failures.getInt(key)));
+					}
+				}
+			}
+
+			lines.addFirst(String.format("Dead books: %d, showing %d", dead, lines.size()));
+			return lines;
+		}
+
+		private void recordDirtyRoutes() {
+			for (var route : dirtyRoutes) {
+				var destinations = routes.get(route.source);
+				var stats = destinations != null ? destinations.get(route.destination) : null;
+
+				if (stats == null) {
+					continue;
+				}
+
+				record(BookStore.RECORD_ROUTE, out -> {
+					BookStore.writeLocation(out, route.source);
+					BookStore.writeLocation(out, route.destination);
+
+					out.writeInt(stats.arrivals);
+					out.writeInt(stats.failures);
+					out.writeLong(stats.lastUsed);
+				});
+			}
+
+			dirtyRoutes.clear();
+		}
+	}
+
+	// Ticket type flags, as used by the vanilla ticket types
+	static final int TICKET_FLAG_LOADING = 2;
+
+	// Registered from the initializer, while the registry is still open, rather than by whichever
+	//  code happens to load Telebooks first
+	static final class TicketTypes {
+		static final ChunkTicketType FORCE = ChunkTicketTypeAccessor.invokeRegister(MOD_ID + ":force", 0L, TICKET_FLAG_LOADING);
+		static final ChunkTicketType POST_LOAD = ChunkTicketTypeAccessor.invokeRegister(MOD_ID + ":post_load", 20L, TICKET_FLAG_LOADING);
+		static final ChunkTicketType PREFETCH = ChunkTicketTypeAccessor.invokeRegister(MOD_ID + ":prefetch", 0L, TICKET_FLAG_LOADING);
+		static final ChunkTicketType ANCHOR = ChunkTicketTypeAccessor.invokeRegister(MOD_ID + ":anchor", 0L, TICKET_FLAG_LOADING);
+
+		static void register() {
+			// Loading the class is all it takes
+		}
+	}
+
+	// Reference counted chunk tickets. Tickets are only added and removed when a chunk gains its first
+	//  or loses its last holder, so holders sharing chunks cannot pull them out from under each other.
+	static class ChunkTickets {
+		private final Supplier<ChunkTicketType> type;
+		private final int radius;
+
+		private final HashMap<RegistryKey<World>, Long2IntOpenHashMap> holders = new HashMap<>();
+		private int heldChunks = 0;
+
+		ChunkTickets(Supplier<ChunkTicketType> type, int radius) {
+			this.type = type;
+			this.radius = radius;
+		}
+
+		public void acquire(ServerWorld world, ChunkPos pos) {
+			var counts = holders.computeIfAbsent(world.getRegistryKey(), key -> new Long2IntOpenHashMap());
+
+			if (counts.addTo(pos.toLong(), 1) == 0) {
+				world.getChunkManager().addTicket(type.get(), pos, radius);
+				heldChunks++;
+			}
+		}
+
+		public void release(ServerWorld world, ChunkPos pos) {
+			var counts = holders.get(world.getRegistryKey());
+			if (counts == null) {
+				return;
+			}
+
+			var key = pos.toLong();
+
+			int count = counts.get(key);
+			if (count <= 0) {
+				LOGGER.warn("Released {} ticket at {} without holding it", type.get(), pos);
+				return;
+			}
+
+			if (count > 1) {
+				counts.put(key, count - 1);
+				return;
+			}
+
+			counts.remove(key);
+
+			world.getChunkManager().removeTicket(type.get(), pos, radius);
+			heldChunks--;
+		}
+
+		public int getHeldChunkCount() {
+			return heldChunks;
+		}
+
+		// Tickets do not outlive the server, neither should their accounting
+		public void clear() {
+			holders.clear();
+			heldChunks = 0;
+		}
+	}
+
+	static final ChunkTickets FORCE_TICKETS = new ChunkTickets(() -> TicketTypes.FORCE, 1);
+
+	static final ChunkTickets PREFETCH_TICKETS = new ChunkTickets(() -> TicketTypes.PREFETCH, 0);
+
+	// Loads the destinations around the page open in a destination picker ahead of time, so the
+	//  eventual teleport finds its chunks already resident. Prefetches use low level tickets, and
+	//  are dropped as soon as the reader flips away from them or closes the book.
+	static class DestinationPrefetch {
+		private final MinecraftServer server;
+
+		private final BookChain chain;
+		private final BookLocation origin;
+
+		// Sibling indices come from pages of the live chain, so the copy follows its version
+		private List<BookLocation> destinations;
+		private int chainVersion;
+
+		private final HashSet<BookLocation> held = new HashSet<>();
+
+		DestinationPrefetch(MinecraftServer server, BookChain chain, BookLocation origin) {
+			this.server = server;
+			this.chain = chain;
+			this.origin = origin;
+
+			reopen();
+		}
+
+		private void reopen() {
+			destinations = List.copyOf(chain.books);
+			chainVersion = chain.version();
+		}
+
+		public void focus(int page) {
+			if (chain.version() != chainVersion) {
+				reopen();
+			}
+
+			var wanted = new HashSet<BookLocation>();
+
+			int radius = CONFIG.picker().prefetchRadius();
+			int count = destinations.size();
+
+			if (count > 0) {
+				for (int offset = -radius; offset <= radius; offset++) {
+					var loc = destinations.get(Math.floorMod(page + offset, count));
+
+					if (!loc.equalsWithoutFlavour(origin)) {
+						wanted.add(loc);
+					}
+				}
+			}
+
+			update(wanted);
+		}
+
+		public void release() {
+			update(Set.of());
+		}
+
+		private void update(Set<BookLocation> wanted) {
+			for (var loc : List.copyOf(held)) {
+				if (!wanted.contains(loc)) {
+					setHeld(loc, false);
+				}
+			}
+			for (var loc : wanted) {
+				if (!held.contains(loc)) {
+					setHeld(loc, true);
+				}
+			}
+		}
+
+		private void setHeld(BookLocation loc, boolean hold) {
+			var world = server.getWorld(loc.world);
+
+			if (world != null) {
+				for (var chunkPos : loc.getSurroundingChunks()) {
+					if (hold) {
+						PREFETCH_TICKETS.acquire(world, chunkPos);
+					} else {
+						PREFETCH_TICKETS.release(world, chunkPos);
+					}
+				}
+			}
+
+			if (hold) {
+				held.add(loc);
+			} else {
+				held.remove(loc);
+			}
+		}
+	}
+
+	// Starts loading the likely destination of a book as soon as a player steps into its active area,
+	//  so the chunks are usually resident by the time they use the lectern. That is the destination
+	//  they last picked from this book, or otherwise the next one in the rotation. Uses the same low
+	//  level tickets as the picker, dropped again when the player steps off.
+	static class ProximityPrewarm {
+		record Choice(BookLocation origin, BookLocation destination) {}
+
+		static class Tracked {
+			RegistryKey<World> world;
+			BlockPos blockPos;
+
+			BookLocation book;
+			BookLocation destination;
+
+			// Chain of the book, as of when its destination was picked
+			BookChain chain;
+			int chainVersion;
+
+			boolean isChainChanged() {
+				return chain != null && chain.version() != chainVersion;
+			}
+		}
+
+		private final HashMap<UUID, Tracked> players = new HashMap<>();
+		private final HashMap<UUID, Choice> choices = new HashMap<>();
+
+		public void tick(MinecraftServer server) {
+			if (!CONFIG.prewarm().enabled()) {
+				releaseAll(server);
+				choices.clear();
+				return;
+			}
+
+			var state = State.get(server);
+			var online = new HashSet<UUID>();
+
+			for (var player : server.getPlayerManager().getPlayerList()) {
+				online.add(player.getUuid());
+
+				var tracked = players.computeIfAbsent(player.getUuid(), key -> new Tracked());
+
+				var world = player.getEntityWorld().getRegistryKey();
+				var blockPos = player.getBlockPos();
+
+				// Standing still, nothing to do unless the destinations of the book changed
+				if (world == tracked.world && blockPos.equals(tracked.blockPos) && !tracked.isChainChanged()) {
+					continue;
+				}
+
+				tracked.world = world;
+				tracked.blockPos = blockPos.toImmutable();
+
+				var entry = state.index.findContaining(world, player.getEntityPos());
+				var book = entry.map(BookIndex.Entry::book).orElse(null);
+
+				// Still on the same book
+				boolean sameBook = book == tracked.book || (book != null && tracked.book != null && book.equalsWithoutFlavour(tracked.book));
+
+				if (sameBook && !tracked.isChainChanged()) {
+					continue;
+				}
+
+				setDestination(server, tracked, null);
+				tracked.book = book;
+				tracked.chain = null;
+
+				if (entry.isPresent()) {
+					tracked.chain = state.books.get(entry.get().chainID());
+					tracked.chainVersion = tracked.chain != null ? tracked.chain.version() : 0;
+
+					setDestination(server, tracked, pickDestination(state, player.getUuid(), entry.get()));
+				}
+			}
+
+			// Release whatever players who have left were holding
+			var iterator = players.entrySet().iterator();
+
+			while (iterator.hasNext()) {
+				var tracked = iterator.next();
+
+				if (!online.contains(tracked.getKey())) {
+					setDestination(server, tracked.getValue(), null);
+					iterator.remove();
+
+					choices.remove(tracked.getKey());
+				}
+			}
+		}
+
+		public void onChosen(PlayerEntity player, BookLocation origin, BookLocation destination) {
+			choices.put(player.getUuid(), new Choice(origin.withoutFlavour(), destination.withoutFlavour()));
+		}
+
+		private BookLocation pickDestination(State state, UUID player, BookIndex.Entry entry) {
+			var chain = state.books.get(entry.chainID());
+			if (chain == null || chain.books.size() < 2) {
+				return null;
+			}
+
+			int origin = -1;
+
+			for (int index = 0; index < chain.books.size(); index++) {
+				if (chain.books.get(index).equalsWithoutFlavour(entry.book())) {
+					origin = index;
+					break;
+				}
+			}
+
+			if (origin < 0) {
+				return null;
+			}
+
+			// Prefer the last pick from this book, as long as it is still part of the chain
+			var choice = choices.get(player);
+
+			if (choice != null && choice.origin.equalsWithoutFlavour(entry.book())) {
+				for (var book : chain.books) {
+					if (book.equalsWithoutFlavour(choice.destination)) {
+						return book;
+					}
+				}
+			}
+
+			return chain.books.get((origin + 1) % chain.books.size());
+		}
+
+		private void setDestination(MinecraftServer server, Tracked tracked, BookLocation destination) {
+			if (tracked.destination != null) {
+				var world = server.getWorld(tracked.destination.world);
+
+				if (world != null) {
+					for (var chunkPos : tracked.destination.getSurroundingChunks()) {
+						PREFETCH_TICKETS.release(world, chunkPos);
+					}
+				}
+			}
+
+			tracked.destination = destination;
+
+			if (destination != null) {
+				var world = server.getWorld(destination.world);
+
+				if (world != null) {
+					for (var chunkPos : destination.getSurroundingChunks()) {
+						PREFETCH_TICKETS.acquire(world, chunkPos);
+					}
+				} else {
+					tracked.destination = null;
+				}
+			}
+		}
+
+		private void releaseAll(MinecraftServer server) {
+			for (var tracked : players.values()) {
+				setDestination(server, tracked, null);
+			}
+
+			players.clear();
+		}
+
+		// Tickets are dropped along with the server, only the bookkeeping needs resetting
+		public void clear() {
+			players.clear();
+			choices.clear();
+		}
+	}
+
+	static final ProximityPrewarm PREWARM = new ProximityPrewarm();
+
+	// Destination picker pages, built once per chain version and shared between all viewers - each
+	//  viewer only gets their own copy of the page of the book they are standing at
+	static class PickerPages {
+		// Lecterns report jumping to page N as pressing this button + N
+		static final int PAGE_BUTTON_ID = 100;
+
+		// A run of destinations shown as a single book. Windows of long chains are framed by a page on
+		//  each end, flipping onto which moves the reader to the neighbouring window.
+		record Window(int index, int start, int count, boolean framed, List<RawFilteredPair<Text>> pages) {
+			public int getPageCount() {
+				return pages.size();
+			}
+
+			public int getSibling(int page) {
+				if (!framed) {
+					return start + page;
+				}
+				if (page < 1 || page > count) {
+					return -1;
+				}
+				return start + page - 1;
+			}
+
+			public int getPage(int sibling) {
+				if (sibling < start || sibling >= start + count) {
+					return -1;
+				}
+				return framed ? sibling - start + 1 : sibling - start;
+			}
+
+			// Teleport links jump to the page after their own, see buildPage
+			public int getButtonSibling(int id) {
+				return getSibling(Math.floorMod(id - PAGE_BUTTON_ID - 1, pages.size()));
+			}
+
+			public List<RawFilteredPair<Text>> getPagesFor(BookLocation origin, int originIndex) {
+				int page = getPage(originIndex);
+				if (page < 0) {
+					return pages;
+				}
+
+				var patched = new ArrayList<>(pages);
+				patched.set(page, RawFilteredPair.of(buildHeader(origin).append(Text.literal("(You are here)"))));
+
+				return patched;
+			}
+		}
+
+		private record Cached(int version, int windowPages, Window[] windows) {}
+
+		private final HashMap<BookChain, Cached> chains = new HashMap<>();
+
+		private Cached getCached(BookChain chain) {
+			int windowPages = CONFIG.picker().windowPages();
+
+			var cached = chains.get(chain);
+			if (cached == null || cached.version != chain.version() || cached.windowPages != windowPages) {
+				int windowCount = Math.max(1, Math.ceilDiv(chain.books.size(), windowPages));
+
+				cached = new Cached(chain.version(), windowPages, new Window[windowCount]);
+				chains.put(chain, cached);
+			}
+
+			return cached;
+		}
+
+		public int getWindowCount(BookChain chain) {
+			return getCached(chain).windows.length;
+		}
+
+		public Window getWindowOf(BookChain chain, int sibling) {
+			return getWindow(chain, Math.max(0, sibling) / getCached(chain).windowPages);
+		}
+
+		public Window getWindow(BookChain chain, int index) {
+			var cached = getCached(chain);
+			index = Math.floorMod(index, cached.windows.length);
+
+			var window = cached.windows[index];
+			if (window == null) {
+				window = buildWindow(chain, index, cached.windowPages, cached.windows.length > 1);
+				cached.windows[index] = window;
+			}
+
+			return window;
+		}
+
+		private static Window buildWindow(BookChain chain, int index, int windowPages, boolean framed) {
+			int start = index * windowPages;
+			int count = Math.min(windowPages, chain.books.size() - start);
+
+			int pageCount = framed ? count + 2 : count;
+
+			var pages = new ArrayList<RawFilteredPair<Text>>(pageCount);
+
+			if (framed) {
+				pages.add(RawFilteredPair.of(Text.literal("\n\n\nFlip back for earlier destinations")));
+			}
+			for (int offset = 0; offset < count; offset++) {
+				pages.add(RawFilteredPair.of(buildPage(chain.books.get(start + offset), pages.size(), pageCount)));
+			}
+			if (framed) {
+				pages.add(RawFilteredPair.of(Text.literal("\n\n\nFlip on for more destinations")));
+			}
+
+			return new Window(index, start, count, framed, List.copyOf(pages));
+		}
+
+		private static MutableText buildHeader(BookLocation loc) {
+			var page = Text.empty();
+
+			page.append(loc.flavour.orElse("\n???\n\n\n"));
+			page.append("\n");
+
+			return page;
+		}
+
+		// NB: Lecterns only report page changes, so the link points to the page after its own - the
+		//  destination is recovered from that when the button press arrives
+		private static Text buildPage(BookLocation loc, int page, int pageCount) {
+			var pageIndex = (page + 1) % pageCount + 1;
+
+			return buildHeader(loc).append(Text.literal("Teleport!").styled(style -> style
+				.withUnderline(true)
+				.withClickEvent(new ClickEvent.ChangePage(pageIndex))
+			));
+		}
+
+		// Pages of a chain whose membership changed are rebuilt on demand, until then they are dropped
+		public void invalidate(BookChain chain) {
+			chains.remove(chain);
+		}
+
+		public void clear() {
+			chains.clear();
+		}
+	}
+
+	static final PickerPages PICKER_PAGES = new PickerPages();
+
+	// Keeps the surroundings of the most frequently arrived at destinations loaded, so teleports there
+	//  do not have to wait for chunks. Arrival counts are halved periodically, so destinations which
+	//  went out of fashion make way for new ones.
+	static class AnchorTracker {
+		static class Arrivals {
+			int count;
+			int lastTick;
+		}
+
+		// Only destinations which could plausibly become anchors are tracked
+		static final int TRACKED_PER_ANCHOR = 8;
+
+		private final HashMap<BookLocation, Arrivals> arrivals = new HashMap<>();
+		private final HashSet<BookLocation> anchored = new HashSet<>();
+
+		private final ChunkTickets tickets = new ChunkTickets(() -> TicketTypes.ANCHOR, 0);
+
+		private static int getCapacity() {
+			return CONFIG.warmAnchors().chunkBudget() / 9;
+		}
+
+		private static Comparator<Map.Entry<BookLocation, Arrivals>> byHeat() {
+			return Comparator.<Map.Entry<BookLocation, Arrivals>>comparingInt(entry -> entry.getValue().count)
+				.thenComparingInt(entry -> entry.getValue().lastTick)
+				.reversed();
+		}
+
+		public void onArrival(MinecraftServer server, BookLocation destination) {
+			if (!CONFIG.warmAnchors().enabled()) {
+				return;
+			}
+
+			var entry = arrivals.computeIfAbsent(destination.withoutFlavour(), key -> new Arrivals());
+			entry.count++;
+			entry.lastTick = server.getTicks();
+
+			// Evict the coldest destinations once there are too many to track
+			int trackLimit = Math.max(1, getCapacity()) * TRACKED_PER_ANCHOR;
+
+			if (arrivals.size() > trackLimit) {
+				arrivals.entrySet().stream()
+					.sorted(byHeat())
+					.skip(trackLimit)
+					.map(Map.Entry::getKey)
+					.toList()
+					.forEach(arrivals::remove);
+			}
+
+			rebalance(server);
+		}
+
+		public void decay(MinecraftServer server) {
+			// While disabled nothing is tracked, anchors left over from before are released once
+			if (!CONFIG.warmAnchors().enabled()) {
+				if (!arrivals.isEmpty() || !anchored.isEmpty()) {
+					arrivals.clear();
+					rebalance(server);
+				}
+				return;
+			}
+
+			arrivals.values().forEach(entry -> entry.count /= 2);
+			arrivals.values().removeIf(entry -> entry.count == 0);
+
+			rebalance(server);
+		}
+
+		private void rebalance(MinecraftServer server) {
+			var state = State.get(server);
+
+			// Destinations which left their chain are not worth keeping warm
+			arrivals.keySet().removeIf(loc -> state.index.find(loc).isEmpty());
+
+			var hottest = new HashSet<BookLocation>();
+
+			if (CONFIG.warmAnchors().enabled()) {
+				arrivals.entrySet().stream()
+					.sorted(byHeat())
+					.limit(getCapacity())
+					.forEach(entry -> hottest.add(entry.getKey()));
+			}
+
+			for (var loc : List.copyOf(anchored)) {
+				if (!hottest.contains(loc)) {
+					setAnchored(server, loc, false);
+				}
+			}
+			for (var loc : hottest) {
+				if (!anchored.contains(loc)) {
+					setAnchored(server, loc, true);
+				}
+			}
+		}
+
+		private void setAnchored(MinecraftServer server, BookLocation loc, boolean anchor) {
+			var world = server.getWorld(loc.world);
+
+			if (world != null) {
+				for (var chunkPos : loc.getSurroundingChunks()) {
+					if (anchor) {
+						tickets.acquire(world, chunkPos);
+					} else {
+						tickets.release(world, chunkPos);
+					}
+				}
+			}
+
+			if (anchor) {
+				anchored.add(loc);
+			} else {
+				anchored.remove(loc);
+			}
+		}
+
+		public int getHeldChunkCount() {
+			return tickets.getHeldChunkCount();
+		}
+
+		public void clear() {
+			arrivals.clear();
+			anchored.clear();
+			tickets.clear();
+		}
+	}
+
+	static final AnchorTracker WARM_ANCHORS = new AnchorTracker();
+
+	// Chunk tickets held while the surroundings of a book location are being loaded
+	static class ChunkLoad {
+		final ServerWorld world;
+		final BookLocation target;
+
+		final List<ChunkPos> chunks;
+		final CompletableFuture<BookLocation> future;
+
+		private boolean released = false;
+
+		ChunkLoad(ServerWorld world, BookLocation target, List<ChunkPos> chunks, CompletableFuture<?> chunksLoaded) {
+			this.world = world;
+			this.target = target;
+			this.chunks = chunks;
+
+			var manager = world.getChunkManager();
+
+			var ticketsUpdated = chunksLoaded.handle((nothing, error) -> {
+				if (released) {
+					return nothing;
+				}
+
+				// Loading either complete, or something went awry - replace permanent tickets with temporary ones
+				for (var chunkPos : chunks) {
+					FORCE_TICKETS.release(world, chunkPos);
+
+					if (error == null) {
+						manager.addTicket(TicketTypes.POST_LOAD, chunkPos, 1);
+					}
+				}
+
+				return nothing;
+			});
+
+			this.future = ticketsUpdated.thenApply((nothing) -> target);
+		}
+
+		public boolean isReleased() {
+			return released;
+		}
+
+		// Gives up on a load which is no longer needed, without keeping the chunks around afterwards
+		public void release() {
+			if (released || future.isDone()) {
+				return;
+			}
+			released = true;
+
+			for (var chunkPos : chunks) {
+				FORCE_TICKETS.release(world, chunkPos);
+			}
+		}
+	}
+
+	private ChunkLoad asyncChunkLoad(ServerWorld world, BookLocation loc) {
+		var manager = world.getChunkManager();
+
+		// Check preconditions, lest we violate threading constraints
+		var accessor = (ServerChunkManagerAccessor) manager;
+		if (accessor.getServerThread() != Thread.currentThread()) {
+			throw new IllegalStateException();
+		}
+
+		// Determine which chunks we need to load to check the book position
+		var chunks = loc.getSurroundingChunks();
+
+		// Initiate chunk loading, capture futures
+		var chunkFutures = new ArrayList<CompletableFuture<?>>();
+
+		for (var chunkPos : chunks) {
+			// Make sure loaded chunks remain in memory, even if their arrival is spread across multiple server ticks.
+			FORCE_TICKETS.acquire(world, chunkPos);
+
+			// Invoke internal method which does _not_ pump server events until the chunk loading is complete.
+			chunkFutures.add(accessor.invokeGetChunkFuture(chunkPos.x, chunkPos.z, ChunkStatus.FULL, true));
+		}
+
+		// Synchronize
+		var chunksLoaded = CompletableFuture.allOf(chunkFutures.toArray(new CompletableFuture[0]));
+
+		return new ChunkLoad(world, loc, chunks, chunksLoaded);
+	}
+
+	// Latencies in power of two buckets of microseconds. Coarse, but cheap to record and small enough
+	//  to keep for the whole lifetime of the server.
+	static class LatencyHistogram {
+		private static final int BUCKETS = 32;
+
+		private final long[] buckets = new long[BUCKETS];
+
+		private long count;
+		private long totalNanos;
+		private long maxNanos;
+
+		// NB: Saves are recorded from the IO thread
+		public synchronized void record(long nanos) {
+			long micros = nanos / 1000;
+			int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+
+			buckets[bucket]++;
+
+			count++;
+			totalNanos += nanos;
+			maxNanos = Math.max(maxNanos, nanos);
+		}
+
+		// Upper bound of the bucket the given quantile falls into
+		public synchronized double getPercentileMillis(double quantile) {
+			long rank = (long) Math.ceil(quantile * count);
+			long seen = 0;
+
+			for (int bucket = 0; bucket < BUCKETS; bucket++) {
+				seen += buckets[bucket];
+
+				if (seen >= rank && seen > 0) {
+					return Math.min((1L << bucket) / 1000.0, maxNanos / 1_000_000.0);
+				}
+			}
+			return 0;
+		}
+
+		public synchronized long getCount() {
+			return count;
+		}
+
+		public synchronized double getMeanMillis() {
+			return count == 0 ? 0 : totalNanos / 1_000_000.0 / count;
+		}
+
+		public synchronized double getMaxMillis() {
+			return maxNanos / 1_000_000.0;
+		}
+
+		public JsonObject toJson() {
+			var json = new JsonObject();
+
+			json.addProperty("count", getCount());
+			json.addProperty("mean_ms", getMeanMillis());
+			json.addProperty("p50_ms", getPercentileMillis(0.5));
+			json.addProperty("p99_ms", getPercentileMillis(0.99));
+			json.addProperty("max_ms", getMaxMillis());
+
+			return json;
+		}
+	}
+
+	@Name("telebooks.TeleportPhase")
+	@Label("Telebook Teleport Phase")
+	@Category("Telebooks")
+	@StackTrace(false)
+	public static class PhaseEvent extends Event {
+		@Label("Sequence")
+		int sequence;
+
+		@Label("Phase")
+		String phase;
+	}
+
+	@Name("telebooks.Teleport")
+	@Label("Telebook Teleport")
+	@Category("Telebooks")
+	@StackTrace(false)
+	public static class TeleportEvent extends Event {
+		@Label("Sequence")
+		int sequence;
+
+		@Label("Success")
+		boolean success;
+
+		@Label("Candidates Tried")
+		int candidatesTried;
+
+		@Label("Candidates Pruned")
+		int candidatesPruned;
+
+		@Label("Chunks Requested")
+		int chunksRequested;
+	}
+
+	// Where teleports spend their time. Every phase is timed into a histogram, and reported as a JFR
+	//  event for recordings to pick up.
+	static class TeleportMetrics {
+		enum Phase {
+			TELEPORT("teleport"),
+			CHUNK_LOAD("chunk_load"),
+			VERIFY("verify"),
+			CUT("cut"),
+			PASTE("paste"),
+			PASTE_ENTITIES("paste_entities"),
+			SAVE("save");
+
+			final String id;
+
+			Phase(String id) {
+				this.id = id;
+			}
+		}
+
+		// Phase events are only created while a recording asks for them
+		private static final EventType PHASE_EVENT_TYPE = EventType.getEventType(PhaseEvent.class);
+
+		class Span {
+			private final Phase phase;
+			private final int sequence;
+
+			private final long start = System.nanoTime();
+			private final PhaseEvent event;
+
+			private boolean ended = false;
+
+			Span(Phase phase, int sequence) {
+				this.phase = phase;
+				this.sequence = sequence;
+
+				event = PHASE_EVENT_TYPE.isEnabled() ? new PhaseEvent() : null;
+
+				if (event != null) {
+					event.begin();
+				}
+			}
+
+			// NB: Only the first call counts, so abandoning a span already ended is harmless
+			public void end() {
+				if (ended) {
+					return;
+				}
+				ended = true;
+
+				latencies.get(phase).record(System.nanoTime() - start);
+
+				if (event == null) {
+					return;
+				}
+
+				event.end();
+
+				if (event.shouldCommit()) {
+					event.sequence = sequence;
+					event.phase = phase.id;
+					event.commit();
+				}
+			}
+		}
+
+		private final EnumMap<Phase, LatencyHistogram> latencies = new EnumMap<>(Phase.class);
+
+		{
+			for (var phase : Phase.values()) {
+				latencies.put(phase, new LatencyHistogram());
+			}
+		}
+
+		// Sequences are only counted on the server thread
+		long teleportsSucceeded;
+		long teleportsFailed;
+		long candidatesTried;
+		long candidatesPruned;
+		long chunksRequested;
+		long entitiesMoved;
+
+		public Span begin(Phase phase, int sequence) {
+			return new Span(phase, sequence);
+		}
+
+		public void onSequenceEnded(TeleportSequence sequence, boolean success) {
+			if (success) {
+				teleportsSucceeded++;
+			} else {
+				teleportsFailed++;
+			}
+
+			candidatesTried += sequence.candidatesTried;
+			candidatesPruned += sequence.candidatesPruned;
+			chunksRequested += sequence.chunksRequested;
+
+			var event = new TeleportEvent();
+			if (event.shouldCommit()) {
+				event.sequence = sequence.id;
+				event.success = success;
+				event.candidatesTried = sequence.candidatesTried;
+				event.candidatesPruned = sequence.candidatesPruned;
+				event.chunksRequested = sequence.chunksRequested;
+				event.commit();
+			}
+		}
+
+		public List<String> describe() {
+			var lines = new ArrayList<String>();
+
+			lines.add(String.format("Teleports: %d succeeded, %d failed, %d in flight, %d work items queued",
+				teleportsSucceeded, teleportsFailed, SCHEDULER.getActiveCount(), SCHEDULER.getQueuedCount()));
+			lines.add(String.format("Candidates: %d tried, %d pruned; %d chunks requested",
+				candidatesTried, candidatesPruned, chunksRequested));
+			lines.add(String.format("Entities moved: %d", entitiesMoved));
+			lines.add(String.format("Chunks held: %d force, %d prefetch, %d anchored",
+				FORCE_TICKETS.getHeldChunkCount(), PREFETCH_TICKETS.getHeldChunkCount(), WARM_ANCHORS.getHeldChunkCount()));
+
+			for (var phase : Phase.values()) {
+				var latency = latencies.get(phase);
+
+				lines.add(String.format("%s: n=%d mean=%.2fms p50<=%.2fms p99<=%.2fms max=%.2fms",
+					phase.id, latency.getCount(), latency.getMeanMillis(), latency.getPercentileMillis(0.5), latency.getPercentileMillis(0.99), latency.getMaxMillis()));
+			}
+
+			return lines;
+		}
+
+		public JsonObject toJson() {
+			var json = new JsonObject();
+
+			json.addProperty("teleports_succeeded", teleportsSucceeded);
+			json.addProperty("teleports_failed", teleportsFailed);
+			json.addProperty("teleports_in_flight", SCHEDULER.getActiveCount());
+			json.addProperty("candidates_tried", candidatesTried);
+			json.addProperty("candidates_pruned", candidatesPruned);
+			json.addProperty("chunks_requested", chunksRequested);
+			json.addProperty("entities_moved", entitiesMoved);
+
+			var tickets = new JsonObject();
+			tickets.addProperty("force", FORCE_TICKETS.getHeldChunkCount());
+			tickets.addProperty("prefetch", PREFETCH_TICKETS.getHeldChunkCount());
+			tickets.addProperty("anchor", WARM_ANCHORS.getHeldChunkCount());
+			json.add("chunks_held", tickets);
+
+			var phases = new JsonObject();
+			for (var phase : Phase.values()) {
+				phases.add(phase.id, latencies.get(phase).toJson());
+			}
+			json.add("latency", phases);
+
+			return json;
+		}
+
+		// Written off-thread, replacing the previous dump
+		public void dump(MinecraftServer server) {
+			var file = server.getSavePath(WorldSavePath.ROOT).resolve(MOD_ID + "-metrics.json");
+			var contents = new GsonBuilder().setPrettyPrinting().create().toJson(toJson());
+
+			State.WRITER.execute(() -> {
+				try {
+					Files.writeString(file, contents);
+				} catch (IOException e) {
+					LOGGER.warn("Failed to write telebook metrics", e);
+				}
+			});
+		}
+	}
+
+	static final TeleportMetrics METRICS = new TeleportMetrics();
+
+	// Asynchronously determines the first valid candidate to teleport to in rotation order, while also
+	//  removing invalidated entries. Chunks of multiple candidates may be requested at once, in which
+	//  case each of them is verified as soon as it arrives.
+	class TeleportSequence {
+		class Probe {
+			final BookLocation target;
+
+			final ServerWorld targetWorld;
+			final ChunkLoad load;
+			private TeleportMetrics.Span loading;
+
+			final CompletableFuture<Boolean> verified;
+			int verifiedTick;
+
+			// Probes whose chunks were all loaded already are verified on the spot
+			final boolean resident;
+			private boolean holding = false;
+
+			Probe(BookLocation target) {
+				this.target = target;
+				this.targetWorld = server.getWorld(target.world);
+
+				if (targetWorld == null) {
+					LOGGER.warn("[{}]: Target references unknown world, skipping {}", id, target);
+
+					this.load = null;
+					this.resident = false;
+					this.verified = CompletableFuture.completedFuture(false);
+					return;
+				}
+
+				if (target.isResident(targetWorld)) {
+					LOGGER.debug("[{}]: Chunks already loaded. Verifying pattern for {}", id, target);
+
+					// The transfer may only happen in a later tick, the chunks must still be there by then
+					for (var chunkPos : target.getSurroundingChunks()) {
+						FORCE_TICKETS.acquire(targetWorld, chunkPos);
+					}
+					this.holding = true;
+
+					this.load = null;
+					this.resident = true;
+					this.verified = CompletableFuture.completedFuture(verify());
+					return;
+				}
+				this.resident = false;
+
+				LOGGER.debug("[{}]: Loading chunks asynchronously for {}", id, target);
+
+				loading = METRICS.begin(TeleportMetrics.Phase.CHUNK_LOAD, id);
+
+				this.load = asyncChunkLoad(targetWorld, target);
+				chunksRequested += load.chunks.size();
+
+				this.verified = load.future.thenCompose((loc) -> {
+					// Abandoned probes may complete without their chunks, do not force them in now
+					if (load.isReleased()) {
+						return CompletableFuture.completedFuture(false);
+					}
+
+					loading.end();
+
+					return SCHEDULER.submit(() -> {
+						if (isFinished()) {
+							return false;
+						}
+
+						LOGGER.debug("[{}]: Chunks loaded. Verifying pattern for {}", id, target);
+
+						return verify();
+					});
+				});
+			}
+
+			// Drops the chunks of the probe, whether they are still loading or were resident
+			void release() {
+				if (load != null) {
+					load.release();
+					loading.end();
+				}
+
+				if (holding) {
+					holding = false;
+
+					for (var chunkPos : target.getSurroundingChunks()) {
+						FORCE_TICKETS.release(targetWorld, chunkPos);
+					}
+				}
+			}
+
+			boolean verify() {
+				verifiedTick = server.getTicks();
+
+				// Nothing around the target changed since it was last found valid
+				if (VERIFIED_STAMPS.isUnchanged(targetWorld, target)) {
+					return true;
+				}
+
+				var verifying = METRICS.begin(TeleportMetrics.Phase.VERIFY, id);
+				var targetPattern = tryGetBookPattern(targetWorld, target.center, target.forward);
+				verifying.end();
+
+				if (targetPattern.isEmpty() || !targetPattern.get().equals(pattern)) {
+					candidatesPruned++;
+
+					LOGGER.debug("[{}]: Target pattern changed, removing location from rotation", id);
+
+					state.removeBook(chain, target);
+
+					return false;
+				}
+
+				VERIFIED_STAMPS.onVerified(targetWorld, target);
+				return true;
+			}
+		}
+
+		final int id;
+		final MinecraftServer server;
+		final State state;
+
+		final PlayerEntity player;
+		final ServerWorld world;
+		final BookLocation book;
+		final BookChain chain;
+		final Pattern pattern;
+
+		final List<BookLocation> candidates;
+		final ArrayList<Probe> probes = new ArrayList<>();
+
+		// Candidate the sequence is currently waiting on
+		BookLocation awaiting;
+
+		// Set once the transfer is underway
+		TeleportVolume volume;
+
+		final CompletableFuture<Boolean> result = new CompletableFuture<>();
+		int deadline;
+
+		int candidatesTried;
+		int candidatesPruned;
+		int chunksRequested;
+
+		TeleportSequence(int id, MinecraftServer server, State state, PlayerEntity player, ServerWorld world, BookLocation book, BookChain chain, Pattern pattern, List<BookLocation> candidates) {
+			this.id = id;
+			this.server = server;
+			this.state = state;
+			this.player = player;
+			this.world = world;
+			this.book = book;
+			this.chain = chain;
+			this.pattern = pattern;
+			this.candidates = candidates;
+		}
+
+		public CompletableFuture<Boolean> run() {
+			deadline = server.getTicks() + CONFIG.teleport().timeoutTicks();
+
+			orderCandidates();
+
+			var teleporting = METRICS.begin(TeleportMetrics.Phase.TELEPORT, id);
+
+			// Whichever way the sequence ends, it must not leave tickets behind
+			result.whenComplete((success, error) -> {
+				probes.forEach(Probe::release);
+
+				teleporting.end();
+				METRICS.onSequenceEnded(this, error == null && success);
+			});
+
+			probeFrom(0).whenComplete((success, error) -> {
+				if (error != null) {
+					LOGGER.error("[{}]: Teleportation sequence failed", id, error);
+				}
+
+				result.complete(error == null && success);
+			});
 
-			for (var book : database.books) {
-				nextChainID = Math.max(nextChainID, book.id + 1);
-				books.put(book.id, book);
-				patternToBook.put(book.pattern, book.id);
+			return result;
+		}
+
+		public boolean isFinished() {
+			return result.isDone();
+		}
+
+		public void cancel(String reason) {
+			if (isFinished()) {
+				return;
+			}
+
+			LOGGER.debug("[{}]: Teleportation sequence cancelled, {}", id, reason);
+
+			result.complete(false);
+		}
+
+		// Sequences which can no longer do anything useful are cancelled
+		public void checkLiveness() {
+			if (world.getPlayerByUuid(player.getUuid()) != player) {
+				cancel("player left the world");
+				return;
+			}
+			if (!book.activeArea().contains(player.getEntityPos())) {
+				onAbandoned();
+				cancel("player left the book");
+				return;
+			}
+			if (server.getTicks() - deadline > 0) {
+				onAbandoned();
+				cancel("timed out");
 			}
 		}
-		Database save() {
-			var database = new Database();
-			database.books.addAll(books.values());
 
-			return database;
+		// Destinations too slow to reach before the player gave up count against their route
+		private void onAbandoned() {
+			if (awaiting != null && !isFinished()) {
+				state.onFailure(book, awaiting);
+			}
 		}
 
-		public BookChain getOrCreateBookChain(List<BlockState> pattern) {
-			var existingID = patternToBook.get(pattern);
-			if (existingID == null) {
-				var id = nextChainID++;
-				var chain = new BookChain(id, pattern);
+		// Candidates whose surroundings are loaded can be checked without waiting for chunks. Checking
+		//  residency costs chunk lookups, so the scan stops once the probe window is filled - the
+		//  candidates beyond follow in rotation order, unchecked.
+		private void orderCandidates() {
+			var policy = CONFIG.teleport().residentPolicy();
+			if (policy == Config.ResidentPolicy.ROTATION || candidates.size() < 2) {
+				return;
+			}
+
+			int window = Math.max(1, CONFIG.teleport().probeConcurrency());
+
+			var resident = new ArrayList<BookLocation>(window);
+			var unloaded = new ArrayList<BookLocation>();
 
-				books.put(id, chain);
-				patternToBook.put(pattern, id);
+			int scanned = 0;
 
-				return chain;
+			while (scanned < candidates.size() && resident.size() < window) {
+				var candidate = candidates.get(scanned++);
+				var candidateWorld = server.getWorld(candidate.world);
+
+				if (candidateWorld != null && candidate.isResident(candidateWorld)) {
+					resident.add(candidate);
+				} else {
+					unloaded.add(candidate);
+				}
 			}
 
-			return books.get(existingID);
+			var unchecked = new ArrayList<>(candidates.subList(scanned, candidates.size()));
+
+			candidates.clear();
+			candidates.addAll(resident);
+
+			if (policy == Config.ResidentPolicy.PREFER || resident.isEmpty()) {
+				candidates.addAll(unloaded);
+			}
+
+			candidates.addAll(unchecked);
+
+			LOGGER.debug("[{}]: {} of {} scanned candidates resident", id, resident.size(), scanned);
+		}
+
+		private CompletableFuture<Boolean> probeFrom(int index) {
+			if (isFinished()) {
+				return CompletableFuture.completedFuture(false);
+			}
+
+			if (index >= candidates.size()) {
+				LOGGER.debug("[{}]: Ran out of candidates", id);
+				return CompletableFuture.completedFuture(false);
+			}
+
+			// Keep the window of concurrently probed candidates filled
+			int windowEnd = Math.min(candidates.size(), index + Math.max(1, CONFIG.teleport().probeConcurrency()));
+
+			while (probes.size() < windowEnd) {
+				probes.add(new Probe(candidates.get(probes.size())));
+				candidatesTried++;
+			}
+
+			var probe = probes.get(index);
+			awaiting = probe.target;
+
+			return probe.verified.thenCompose((valid) -> {
+				if (!valid) {
+					return probeFrom(index + 1);
+				}
+
+				// Resident targets verified just now need no further waiting - teleport right away. Carrying
+				//  blocks along is heavier work, which stays within the budget of the scheduler.
+				CompletableFuture<Boolean> transferred;
+
+				if (probe.resident && probe.verifiedTick == server.getTicks() && server.isOnThread() && !CONFIG.cargo().enabled()) {
+					LOGGER.debug("[{}]: Taking the resident fast path", id);
+
+					transferred = CompletableFuture.completedFuture(transfer(index, probe));
+				} else {
+					transferred = SCHEDULER.submit(() -> transfer(index, probe));
+				}
+
+				return transferred.thenCompose((success) -> success ? CompletableFuture.completedFuture(true) : probeFrom(index + 1));
+			});
+		}
+
+		private boolean transfer(int index, Probe probe) {
+			if (isFinished()) {
+				return false;
+			}
+
+			// Probes verified ahead of their turn, or in an earlier tick may have gone stale since
+			if (probe.verifiedTick != server.getTicks() && !probe.verify()) {
+				return false;
+			}
+
+			// First valid target wins, the remaining probes are no longer needed
+			for (int later = index + 1; later < probes.size(); later++) {
+				probes.get(later).release();
+			}
+
+			LOGGER.debug("[{}]: Pattern verified, transfer underway", id);
+
+			volume = new TeleportVolume(world == probe.targetWorld);
+
+			boolean carryBlocks = CONFIG.cargo().enabled();
+
+			var cutting = METRICS.begin(TeleportMetrics.Phase.CUT, id);
+			volume.cut(world, book.center, book.forward);
+			if (carryBlocks) {
+				volume.cutBlocks(world, book.center, book.forward);
+			}
+			cutting.end();
+
+			// Blocks go first, so whoever travels along lands on them
+			var pasting = METRICS.begin(TeleportMetrics.Phase.PASTE, id);
+			if (carryBlocks) {
+				volume.pasteBlocks(probe.targetWorld, probe.target.center, probe.target.forward);
+				volume.clearBlocks();
+
+				LOGGER.debug("[{}]: Carried {} blocks", id, volume.getBlockCount());
+			}
+			volume.paste(probe.targetWorld, probe.target.center, probe.target.forward);
+			pasting.end();
+
+			SCHEDULER.transfer(volume);
+
+			WARM_ANCHORS.onArrival(server, probe.target);
+			state.onArrival(book, probe.target);
+
+			return true;
 		}
 	}
 
-	// TODO: These used to be bespoke chunk tickets but the API to register them has gone private..
-	// These replacements look like close enough for the previous ones, but I am not sure whether
-	// it breaks anything in the base game, especially given that there doesn't seem to be a way
-	// to cancel a _specific_ set of tickets :/
-	static ChunkTicketType TELEBOOK_FORCE = ChunkTicketType.PLAYER_LOADING;
-	static ChunkTicketType TELEBOOK_POST_LOAD = ChunkTicketType.PLAYER_SPAWN;
+	// Runs verifications and transfers on the server thread within a per-tick time budget, spreading
+	//  the remainder across later ticks. Also keeps track of sequences in flight, making sure a book
+	//  or player only has a single one at a time, and that they do not outstay their welcome.
+	static class TeleportScheduler {
+		enum Admission {
+			STARTED,
+			DUPLICATE,
+			OVERLOADED,
+		}
 
-	private CompletableFuture<BookLocation> asyncChunkLoad(ServerWorld world, BookLocation loc) {
-		var manager = world.getChunkManager();
+		private final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+		private final ArrayDeque<TeleportVolume> transfers = new ArrayDeque<>();
 
-		// Check preconditions, lest we violate threading constraints
-		var accessor = (ServerChunkManagerAccessor) manager;
-		if (accessor.getServerThread() != Thread.currentThread()) {
-			throw new IllegalStateException();
+		private final ArrayList<TeleportSequence> active = new ArrayList<>();
+
+		private final HashSet<BookLocation> activeSources = new HashSet<>();
+		private final HashSet<UUID> activePlayers = new HashSet<>();
+
+		public Admission tryStart(TeleportSequence sequence) {
+			var source = sequence.book.withoutFlavour();
+			var player = sequence.player.getUuid();
+
+			if (activeSources.contains(source) || activePlayers.contains(player)) {
+				return Admission.DUPLICATE;
+			}
+			if (active.size() >= CONFIG.teleport().maxInFlight()) {
+				return Admission.OVERLOADED;
+			}
+
+			active.add(sequence);
+			activeSources.add(source);
+			activePlayers.add(player);
+
+			sequence.run().whenComplete((success, error) -> {
+				active.remove(sequence);
+				activePlayers.remove(player);
+
+				// The book departs again only once whatever it sent away has left it
+				var volume = sequence.volume;
+
+				if (volume != null) {
+					volume.drained.whenComplete((ignored, drainError) -> activeSources.remove(source));
+				} else {
+					activeSources.remove(source);
+				}
+			});
+
+			return Admission.STARTED;
 		}
 
-		// Determine which chunks we need to load to check the book position
-		var chunks = new ArrayList<ChunkPos>();
-		{
-			var chunkX = ChunkSectionPos.getSectionCoord(loc.center.getX());
-			var chunkZ = ChunkSectionPos.getSectionCoord(loc.center.getZ());
+		public <T> CompletableFuture<T> submit(Supplier<T> work) {
+			var future = new CompletableFuture<T>();
 
-			for (int offX = -1; offX <= 1; offX++) {
-				for (int offZ = -1; offZ <= 1; offZ++) {
-					chunks.add(new ChunkPos(chunkX + offX, chunkZ + offZ));
+			queue.add(() -> {
+				try {
+					future.complete(work.get());
+				} catch (Throwable error) {
+					future.completeExceptionally(error);
 				}
+			});
+
+			return future;
+		}
+
+		// Entities of a volume are pasted over the following ticks, within the per-tick entity cap
+		public void transfer(TeleportVolume volume) {
+			METRICS.entitiesMoved += volume.takeMovedCount();
+
+			if (volume.hasPendingEntities()) {
+				volume.hold();
+				transfers.add(volume);
+			} else {
+				volume.release();
 			}
 		}
 
-		// Initiate chunk loading, capture futures
-		var chunkFutures = new ArrayList<CompletableFuture<?>>();
+		private void pasteEntities(int limit) {
+			while (limit > 0 && !transfers.isEmpty()) {
+				var volume = transfers.peek();
 
-		for (var chunkPos : chunks) {
-			// Make sure loaded chunks remain in memory, even if their arrival is spread across multiple server ticks.
-			manager.addTicket(TELEBOOK_FORCE, chunkPos, 1);
+				var pasting = METRICS.begin(TeleportMetrics.Phase.PASTE_ENTITIES, -1);
+				limit -= volume.pasteEntities(limit);
+				pasting.end();
 
-			// Invoke internal method which does _not_ pump server events until the chunk loading is complete.
-			chunkFutures.add(accessor.invokeGetChunkFuture(chunkPos.x, chunkPos.z, ChunkStatus.FULL, true));
+				METRICS.entitiesMoved += volume.takeMovedCount();
+
+				if (!volume.hasPendingEntities()) {
+					volume.release();
+					transfers.poll();
+				}
+			}
 		}
 
-		// Synchronize
-		var chunksLoaded = CompletableFuture.allOf(chunkFutures.toArray(new CompletableFuture[0]));
+		public void tick() {
+			List.copyOf(active).forEach(TeleportSequence::checkLiveness);
 
-		var ticketsUpdated = chunksLoaded.handle((nothing, error) -> {
-			// Loading either complete, or something went awry - replace permanent tickets with temporary ones
-			for (var chunkPos : chunks) {
-				manager.removeTicket(TELEBOOK_FORCE, chunkPos, 1);
+			long budget = (long) (CONFIG.teleport().tickBudgetMillis() * 1_000_000L);
+			long start = System.nanoTime();
 
-				if (error == null) {
-					manager.addTicket(TELEBOOK_POST_LOAD, chunkPos, 1);
+			// At least a single piece of work is done every tick, so sequences always make progress
+			do {
+				var work = queue.poll();
+				if (work == null) {
+					break;
 				}
+
+				work.run();
+			} while (System.nanoTime() - start < budget);
+
+			pasteEntities(CONFIG.teleport().entitiesPerTick());
+		}
+
+		public int getActiveCount() {
+			return active.size();
+		}
+
+		public int getQueuedCount() {
+			return queue.size();
+		}
+
+		public void clear() {
+			List.copyOf(active).forEach(sequence -> sequence.cancel("server stopping"));
+
+			// Entities copied out of their world exist nowhere else, they must land before shutdown
+			pasteEntities(Integer.MAX_VALUE);
+
+			queue.clear();
+		}
+	}
+
+	static final TeleportScheduler SCHEDULER = new TeleportScheduler();
+
+	// Walks every book in small slices, re-validating the ones whose surroundings happen to be loaded.
+	//  Chunks are never loaded on its behalf - books in unloaded areas are left for a later pass, or
+	//  for the teleports trying them. Verdicts land in the pattern cache, so teleports trying a book
+	//  whose surroundings did not change since do not have to scan it again.
+	static class BookSweeper {
+		// Position of the pass in progress: the chain by id, and the book within it. Chains are walked
+		//  in place rather than copied, so a pass costs nothing up front.
+		private int chainCursor = 0;
+		private int bookCursor = 0;
+
+		private int passStartTick = 0;
+		private boolean passing = false;
+
+		public void tick(MinecraftServer server) {
+			if (!CONFIG.sweeper().enabled()) {
+				return;
 			}
 
-			return nothing;
-		});
+			var state = State.get(server);
+
+			// Passes over books which are mostly unloaded end quickly, do not start the next one right away
+			if (!passing) {
+				if (server.getTicks() - passStartTick < CONFIG.sweeper().passInterval()) {
+					return;
+				}
+
+				passing = true;
+				passStartTick = server.getTicks();
+			}
 
-		return ticketsUpdated.thenApply((nothing) -> loc);
+			long budget = (long) (CONFIG.sweeper().tickBudgetMillis() * 1_000_000L);
+			long start = System.nanoTime();
+
+			while (System.nanoTime() - start < budget) {
+				if (chainCursor >= state.nextChainID) {
+					chainCursor = 0;
+					bookCursor = 0;
+					passing = false;
+					return;
+				}
+
+				var chain = state.books.get(chainCursor);
+
+				if (chain == null || bookCursor >= chain.books.size()) {
+					chainCursor++;
+					bookCursor = 0;
+					continue;
+				}
+
+				var book = chain.books.get(bookCursor);
+
+				if (!sweep(server, state, chain, book)) {
+					bookCursor++;
+				}
+			}
+		}
+
+		// Returns whether the book was removed from its chain
+		private static boolean sweep(MinecraftServer server, State state, BookChain chain, BookLocation book) {
+			var world = server.getWorld(book.world);
+			if (world == null || !isFootprintLoaded(world, book)) {
+				return false;
+			}
+
+			if (VERIFIED_STAMPS.isUnchanged(world, book)) {
+				return false;
+			}
+
+			var pattern = tryGetBookPattern(world, book.center, book.forward);
+			if (pattern.isPresent() && pattern.get().equals(chain.pattern)) {
+				VERIFIED_STAMPS.onVerified(world, book);
+				return false;
+			}
+
+			if (!state.removeBook(chain, book)) {
+				return false;
+			}
+
+			LOGGER.debug("Sweeper removed stale book at {} in {}", book.center, book.world.getValue());
+			return true;
+		}
+
+		private static boolean isFootprintLoaded(ServerWorld world, BookLocation book) {
+			var footprint = new PatternCache.Key(book.world, book.center, book.forward).getFootprint();
+
+			var chunkManager = world.getChunkManager();
+
+			int minChunkX = ChunkSectionPos.getSectionCoord(footprint.getMinX());
+			int maxChunkX = ChunkSectionPos.getSectionCoord(footprint.getMaxX());
+			int minChunkZ = ChunkSectionPos.getSectionCoord(footprint.getMinZ());
+			int maxChunkZ = ChunkSectionPos.getSectionCoord(footprint.getMaxZ());
+
+			for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+				for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+					if (chunkManager.getWorldChunk(chunkX, chunkZ) == null) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+
+		public void clear() {
+			chainCursor = 0;
+			bookCursor = 0;
+			passStartTick = 0;
+			passing = false;
+		}
 	}
 
+	static final BookSweeper SWEEPER = new BookSweeper();
+
 	int nextTeleportSequenceID = 0;
 
-	private ActionResult handleLecternUse(PlayerEntity player, ServerWorld world, BlockPos pos, Integer targetIndex) {
+	ActionResult handleLecternUse(PlayerEntity player, ServerWorld world, BlockPos pos, Integer targetIndex) {
 		var server = world.getServer();
 
 		// Requirement: teleport lecterns must have a book
@@ -608,121 +4396,59 @@ public class Telebooks implements DedicatedServerModInitializer {
 			}
 		}
 
-		// Build flavour text from a standingSign in near the lectern
-		Optional<String> flavour = Optional.empty();
-
-		for (var nearPos : BlockPos.iterateOutwards(center.up(2), 3, 1, 3)) {
-			var nearBlockEntity = world.getBlockEntity(nearPos);
-			if (nearBlockEntity instanceof SignBlockEntity sign) {
-				var contents = new StringBuilder();
-
-				for (var message : sign.getFrontText().getMessages(false)) {
-					contents.append(message.getString());
-					contents.append('\n');
-				}
-
-				flavour = Optional.of(contents.toString());
-				break;
-			}
-		}
+		// Flavour text comes from a sign near the lectern
+		var flavour = FLAVOUR_CACHE.get(world, new BookLocation(world.getRegistryKey(), center, forward, Optional.empty()));
 
 		// If so, locate corresponding book chain
 		var book = new BookLocation(world.getRegistryKey(), center, forward, flavour);
 
 		var state = State.get(server);
-		var stateChanged = false;
 
 		var chain = state.getOrCreateBookChain(pattern.get());
 
-		// Make sure the activated book does not overlay the volume of any still valid books,
-		//  otherwise we cannot let it enter the family
-		stateChanged |= chain.books.removeIf(loc -> {
-			if (book.equalsWithoutFlavour(loc)) {
-				return false;
-			}
-			if (!book.overlaps(loc)) {
-				return false;
-			}
+		// Make sure the activated book does not overlap the volume of any still valid books of
+		//  any chain, otherwise we cannot let it enter the family. Books whose pattern no longer
+		//  matches their chain are stale, and get evicted - this includes a book registered at
+		//  this very spot under a previous pattern.
+		var overlapsValidBook = false;
 
-			var siblingWorld = server.getWorld(loc.world);
-			if (siblingWorld == null) {
-				return false;
+		for (var entry : state.index.findOverlapping(book)) {
+			var sibling = entry.book();
+			var siblingChain = state.books.get(entry.chainID());
+
+			if (siblingChain == chain && book.equalsWithoutFlavour(sibling)) {
+				continue;
 			}
 
-			var siblingPattern = tryGetBookPattern(siblingWorld, loc.center, loc.forward);
-			if (siblingPattern.isEmpty()) {
-				return true;
+			// NB: Overlapping books are always in the same world
+			var siblingPattern = tryGetBookPattern(world, sibling.center, sibling.forward);
+			if (siblingPattern.isPresent() && siblingPattern.get().equals(siblingChain.pattern)) {
+				overlapsValidBook = true;
+				continue;
 			}
 
-			return !pattern.equals(siblingPattern);
-		});
+			state.removeBook(siblingChain, sibling);
+		}
 
-		// Make sure the activated book does not overlap the volume of any still valid
-		//  books, otherwise we cannot let it enter the family
-		if (chain.books.stream().filter(Predicate.not(book::equalsWithoutFlavour)).anyMatch(book::overlaps)) {
+		if (overlapsValidBook) {
 			return ActionResult.PASS;
 		}
 
 		// Check whether this book is a new joiner, and add it to the chain
-		var existing = chain.books.stream().filter(book::equalsWithoutFlavour).findFirst();
+		var existing = state.index.find(book).map(BookIndex.Entry::book);
 		if (existing.isEmpty()) {
-			chain.books.add(book);
-
-			stateChanged = true;
+			state.addBook(chain, book);
 		}
 
 		// Update flavour text upon activation
 		if (existing.isPresent() && !existing.get().equals(book)) {
-			var newChain = chain.books.stream().map(loc -> loc.equalsWithoutFlavour(book) ? book : loc).toList();
-
-			chain.books.clear();
-			chain.books.addAll(newChain);
-
-			stateChanged = true;
-		}
-
-		// Ensure changes are persisted
-		if (stateChanged) {
-			State.save(server);
+			state.updateBook(chain, book);
 		}
 
 		// Interacting with the lectern while sneaking will bring up the destination chooser book
 		if (targetIndex == null && player.isSneaking()) {
 			var commandPrefix = String.format("/telebook_trigger %d %d %d ", pos.getX(), pos.getY(), pos.getZ());
 
-			// Create destination picker book contents
-			var bookItem = new ItemStack(Items.WRITTEN_BOOK);
-
-			var pages = new ArrayList<RawFilteredPair<Text>>();
-
-			int siblingCount = chain.books.size();
-
-			for (int siblingIndex = 0; siblingIndex < siblingCount; siblingIndex++) {
-				var loc = chain.books.get(siblingIndex);
-
-				var page = Text.empty();
-
-				page.append(loc.flavour.orElse("\n???\n\n\n"));
-				page.append("\n");
-
-				if (loc.equals(book)) {
-					page.append(Text.literal("(You are here)"));
-				} else {
-					var pageIndex = (siblingIndex + 1) % siblingCount + 1;
-
-					page.append(Text.literal("Teleport!").styled(style -> style
-						.withUnderline(true)
-						.withClickEvent(new ClickEvent.ChangePage(pageIndex))
-					));
-				}
-
-				pages.add(RawFilteredPair.of(page));
-			}
-
-			bookItem.set(DataComponentTypes.WRITTEN_BOOK_CONTENT, new WrittenBookContentComponent(
-				RawFilteredPair.of("Book"), "System", 0, pages, true
-			));
-
 			// Open a unique instance for the player with the destination picker
 			player.openHandledScreen(new NamedScreenHandlerFactory() {
 				@Override
@@ -732,25 +4458,73 @@ public class Telebooks implements DedicatedServerModInitializer {
 
 				@Override
 				public ScreenHandler createMenu(int syncId, PlayerInventory playerInventory, PlayerEntity player) {
-					var screenHandler = new LecternScreenHandler(syncId, new SimpleInventory(bookItem), new ArrayPropertyDelegate(1)) {
+					var prefetch = new DestinationPrefetch(server, chain, book);
+
+					var inventory = new SimpleInventory(1);
+
+					var screenHandler = new LecternScreenHandler(syncId, inventory, new ArrayPropertyDelegate(1)) {
+						PickerPages.Window window;
+
+						void show(PickerPages.Window window, int page) {
+							this.window = window;
+
+							var bookItem = new ItemStack(Items.WRITTEN_BOOK);
+
+							bookItem.set(DataComponentTypes.WRITTEN_BOOK_CONTENT, new WrittenBookContentComponent(
+								RawFilteredPair.of("Book"), "System", 0, window.getPagesFor(book, chain.books.indexOf(book)), true
+							));
+
+							inventory.setStack(0, bookItem);
+							setProperty(0, page);
+						}
+
 						@Override
 						public boolean onButtonClick(PlayerEntity player, int id) {
 							if (id == LecternScreenHandler.TAKE_BOOK_BUTTON_ID) {
 								return false;
 							}
-							if (id >= 100) {
-								int siblingIndex = (id - 101 + siblingCount) % siblingCount;
+							if (id >= PickerPages.PAGE_BUTTON_ID) {
+								int siblingIndex = window.getButtonSibling(id);
+								if (siblingIndex < 0) {
+									return false;
+								}
 
 								handleLecternUse(player, world, pos, siblingIndex);
 								return true;
 							}
 
-							return super.onButtonClick(player, id);
+							var handled = super.onButtonClick(player, id);
+
+							// Flipping onto the frame of a window moves on to the neighbouring one
+							if (window.getSibling(getPage()) < 0) {
+								if (getPage() == 0) {
+									var previous = PICKER_PAGES.getWindow(chain, window.index() - 1);
+									show(previous, previous.getPageCount() - 2);
+								} else {
+									show(PICKER_PAGES.getWindow(chain, window.index() + 1), 1);
+								}
+							}
+
+							// Follow the reader as they flip pages
+							prefetch.focus(window.getSibling(getPage()));
+
+							return handled;
+						}
+
+						@Override
+						public void onClosed(PlayerEntity player) {
+							super.onClosed(player);
+
+							prefetch.release();
 						}
 					};
 
 					// Open at the current location
-					screenHandler.setProperty(0, chain.books.indexOf(book));
+					int origin = chain.books.indexOf(book);
+					var window = PICKER_PAGES.getWindowOf(chain, origin);
+
+					screenHandler.show(window, Math.max(0, window.getPage(origin)));
+					prefetch.focus(origin);
 
 					return screenHandler;
 				}
@@ -777,62 +4551,126 @@ public class Telebooks implements DedicatedServerModInitializer {
 
 			// Put only targeted book as a valid candidate
 			candidates.add(chain.books.get(targetIndex));
+
+			// Remember the pick, the next visit to this book warms it up first
+			PREWARM.onChosen(player, book, chain.books.get(targetIndex));
 		}
 
 		// Asynchronous teleportation sequence officially begins
 		int sequenceID = nextTeleportSequenceID++;
 
-		LOGGER.debug("[{}]: Teleportation sequence starts, {} candidates", sequenceID, candidates.size());
+		var sequence = new TeleportSequence(sequenceID, server, state, player, world, book, chain, pattern.get(), candidates);
+
+		switch (SCHEDULER.tryStart(sequence)) {
+			case STARTED -> {
+				LOGGER.debug("[{}]: Teleportation sequence starts, {} candidates", sequenceID, candidates.size());
+			}
+			case DUPLICATE -> {
+				// Repeated clicks, or clicks by the occupants of a book which is already departing
+				//  do not start sequences of their own
+				return ActionResult.CONSUME;
+			}
+			case OVERLOADED -> {
+				player.sendMessage(Text.literal("Telebooks are busy, try again shortly").formatted(Formatting.RED), true);
+				return ActionResult.FAIL;
+			}
+		}
+
+		return ActionResult.CONSUME;
+	}
 
-		// Create future sequence that asynchronously determines the first valid candidate
-		//  to teleport to, while also removing invalidated entries
-		//
-		// Start with a 'failed' stage
-		var teleportSuccessful = CompletableFuture.completedFuture(false);
+	private static int sendLines(ServerCommandSource source, List<String> lines) {
+		for (var line : lines) {
+			source.sendFeedback(() -> Text.literal(line), false);
+		}
+		return lines.size();
+	}
 
-		for (var target : candidates) {
-			teleportSuccessful = teleportSuccessful.thenCompose((success) -> {
-				if (success) {
-					LOGGER.debug("[{}]: Teleportation handled by prior target, skipping {}", sequenceID, target);
-					return CompletableFuture.completedFuture(true);
-				}
+	@Override
+	public void onInitializeServer() {
+		TicketTypes.register();
 
-				var targetWorld = server.getWorld(target.world);
-				if (targetWorld == null) {
-					LOGGER.warn("[{}]: Target references unknown world, skipping {}", sequenceID, target);
-					return CompletableFuture.completedFuture(false);
-				}
+		CONFIG = Config.load(FabricLoader.getInstance().getConfigDir().resolve(MOD_ID + ".json"));
 
-				LOGGER.debug("[{}]: Loading chunks asynchronously for {}", sequenceID, target);
+		ServerTickEvents.END_SERVER_TICK.register(server -> {
+			int interval = CONFIG.persistence().flushInterval();
 
-				return asyncChunkLoad(targetWorld, target).thenApply((loc) -> {
-					LOGGER.debug("[{}]: Chunks loaded. Verifying pattern for {}", sequenceID, target);
+			if (interval > 0 && server.getTicks() % interval == 0) {
+				State.flush(server);
+			}
 
-					var targetPattern = tryGetBookPattern(targetWorld, target.center, target.forward);
-					if (!targetPattern.equals(pattern)) {
-						LOGGER.debug("[{}]: Target pattern changed, removing location from rotation", sequenceID);
+			SCHEDULER.tick();
+			SWEEPER.tick(server);
+			PREWARM.tick(server);
 
-						chain.books.remove(target);
-						State.save(server);
+			if (server.getTicks() % CONFIG.warmAnchors().decayInterval() == 0) {
+				WARM_ANCHORS.decay(server);
+			}
 
-						return false;
-					}
+			int dumpInterval = CONFIG.metrics().dumpInterval();
 
-					LOGGER.debug("[{}]: Pattern verified, transfer underway", sequenceID);
+			if (dumpInterval > 0 && server.getTicks() % dumpInterval == 0) {
+				METRICS.dump(server);
+			}
+		});
+		ServerLifecycleEvents.BEFORE_SAVE.register((server, flush, force) -> {
+			State.flush(server);
+		});
+		ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
+			SCHEDULER.clear();
 
-					var volume = new TeleportVolume();
-					volume.cut(world, book.center, book.forward);
-					volume.paste(targetWorld, target.center, target.forward);
-					return true;
-				});
-			});
-		}
+			State.flush(server);
+		});
+		ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+			// Worlds were saved after stopping began, and the writer thread does not keep the process alive.
+			//  Writes are chained, so this also waits for every earlier one.
+			State.flush(server).join();
+
+			FORCE_TICKETS.clear();
+			PREFETCH_TICKETS.clear();
+			WARM_ANCHORS.clear();
+			PICKER_PAGES.clear();
+			SWEEPER.clear();
+			PREWARM.clear();
+			VERIFIED_STAMPS.clear();
+			PATTERN_CACHE.clear();
+			FLAVOUR_CACHE.clear();
+			State.unload();
+		});
 
-		return ActionResult.CONSUME;
-	}
+		CommandRegistrationCallback.EVENT.register((dispatcher, registryAccess, environment) -> {
+			dispatcher.register(CommandManager.literal(MOD_ID)
+				.requires(source -> source.hasPermissionLevel(2))
+				.then(CommandManager.literal("stats").executes(context -> sendLines(context.getSource(), METRICS.describe())))
+				.then(CommandManager.literal("routes")
+					.executes(context -> sendLines(context.getSource(), State.get(context.getSource().getServer()).describeTopRoutes(10)))
+					.then(CommandManager.argument("count", IntegerArgumentType.integer(1)).executes(context -> {
+						int count = IntegerArgumentType.getInteger(context, "count");
+						return sendLines(context.getSource(), State.get(context.getSource().getServer()).describeTopRoutes(count));
+					}))
+				)
+				.then(CommandManager.literal("dead")
+					.executes(context -> sendLines(context.getSource(), State.get(context.getSource().getServer()).describeDeadBooks(-1, 10)))
+					.then(CommandManager.argument("idle_days", IntegerArgumentType.integer(0))
+						.executes(context -> {
+							long idleTicks = IntegerArgumentType.getInteger(context, "idle_days") * 24000L;
+							return sendLines(context.getSource(), State.get(context.getSource().getServer()).describeDeadBooks(idleTicks, 10));
+						})
+						.then(CommandManager.argument("count", IntegerArgumentType.integer(1)).executes(context -> {
+							long idleTicks = IntegerArgumentType.getInteger(context, "idle_days") * 24000L;
+							int count = IntegerArgumentType.getInteger(context, "count");
+							return sendLines(context.getSource(), State.get(context.getSource().getServer()).describeDeadBooks(idleTicks, count));
+						}))
+					)
+				)
+			);
+		});
+
+		ServerChunkEvents.CHUNK_UNLOAD.register((world, chunk) -> {
+			PATTERN_CACHE.invalidateChunk(world.getRegistryKey(), chunk.getPos());
+			FLAVOUR_CACHE.invalidateChunk(world.getRegistryKey(), chunk.getPos());
+		});
 
-	@Override
-	public void onInitializeServer() {
 		UseBlockCallback.EVENT.register((player, world, hand, hitResult) -> {
 			if (player.isSpectator()) {
 				return ActionResult.PASS;
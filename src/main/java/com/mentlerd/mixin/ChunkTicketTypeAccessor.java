@@ -0,0 +1,13 @@
+package com.mentlerd.mixin;
+
+import net.minecraft.server.world.ChunkTicketType;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Invoker;
+
+@Mixin(ChunkTicketType.class)
+public interface ChunkTicketTypeAccessor {
+    @Invoker("register")
+    static ChunkTicketType invokeRegister(String id, long expiryTicks, int flags) {
+        throw new AssertionError();
+    }
+}
@@ -0,0 +1,16 @@
+package com.mentlerd.mixin;
+
+import net.minecraft.entity.ItemEntity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Invoker;
+
+@Mixin(ItemEntity.class)
+public interface ItemEntityInvoker {
+    // Alive, not picked up forever, not marked to never despawn, and not a full stack
+    @Invoker("canMerge")
+    boolean invokeCanMerge();
+
+    // Merges the smaller of the two stacks into the larger one, if their owners and items allow it
+    @Invoker("tryMerge")
+    void invokeTryMerge(ItemEntity other);
+}
@@ -0,0 +1,40 @@
+package com.mentlerd.mixin;
+
+import com.mentlerd.Telebooks;
+import net.minecraft.block.entity.SignBlockEntity;
+import net.minecraft.block.entity.SignText;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.storage.ReadView;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(SignBlockEntity.class)
+public abstract class SignBlockEntityMixin {
+    @Inject(method = "setText", at = @At("RETURN"))
+    private void telebooks$onSetText(SignText text, boolean front, CallbackInfoReturnable<Boolean> cir) {
+        // Vanilla returns false when nothing was changed
+        if (!cir.getReturnValueZ()) {
+            return;
+        }
+
+        var sign = (SignBlockEntity) (Object) this;
+
+        if (sign.getWorld() instanceof ServerWorld world) {
+            Telebooks.onSignChanged(world, sign.getPos());
+        }
+    }
+
+    // Text loaded from data - /data, structure placement - does not go through setText. Signs
+    //  read while their chunk loads have no world yet, those chunks had their flavours dropped on unload.
+    @Inject(method = "readData", at = @At("RETURN"))
+    private void telebooks$onReadData(ReadView view, CallbackInfo ci) {
+        var sign = (SignBlockEntity) (Object) this;
+
+        if (sign.getWorld() instanceof ServerWorld world) {
+            Telebooks.onSignChanged(world, sign.getPos());
+        }
+    }
+}
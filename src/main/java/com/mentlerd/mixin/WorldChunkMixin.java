@@ -0,0 +1,43 @@
+package com.mentlerd.mixin;
+
+import com.mentlerd.Telebooks;
+import net.minecraft.block.BlockState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.chunk.WorldChunk;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(WorldChunk.class)
+public abstract class WorldChunkMixin implements Telebooks.StampedChunk {
+    // A chunk loaded anew gets a fresh stamp, as nothing is known about what happened to it while unloaded
+    @Unique
+    private long telebooks$modificationStamp = Telebooks.nextModificationStamp();
+
+    @Override
+    public long telebooks$getModificationStamp() {
+        return telebooks$modificationStamp;
+    }
+
+    @Override
+    public void telebooks$markModified() {
+        telebooks$modificationStamp = Telebooks.nextModificationStamp();
+    }
+
+    @Inject(method = "setBlockState", at = @At("RETURN"))
+    private void telebooks$onSetBlockState(BlockPos pos, BlockState state, int flags, CallbackInfoReturnable<BlockState> cir) {
+        // Vanilla returns null when nothing was changed
+        if (cir.getReturnValue() == null) {
+            return;
+        }
+
+        telebooks$modificationStamp = Telebooks.nextModificationStamp();
+
+        if (((WorldChunk) (Object) this).getWorld() instanceof ServerWorld world) {
+            Telebooks.onBlockChanged(world, pos);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.mentlerd;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookIndexTest {
+	static Telebooks.BookLocation book(int x, int y, int z) {
+		return new Telebooks.BookLocation(World.OVERWORLD, new BlockPos(x, y, z), Direction.NORTH, Optional.empty());
+	}
+
+	@Test
+	void overlapStopsAtItsReach() {
+		var index = new Telebooks.BookIndex();
+
+		int reach = Telebooks.BookLocation.OVERLAP_REACH;
+
+		// Around a chunk corner, so neighbouring buckets have to be searched as well
+		var center = book(0, 64, 0);
+		index.add(book(reach, 64, 0), 1);
+		index.add(book(-reach, 64 + reach, -reach), 2);
+		index.add(book(reach + 1, 64, 0), 3);
+		index.add(book(0, 64 - reach - 1, 0), 4);
+		index.add(new Telebooks.BookLocation(World.NETHER, center.center(), Direction.NORTH, Optional.empty()), 5);
+
+		var overlapping = index.findOverlapping(center).stream().map(Telebooks.BookIndex.Entry::chainID).sorted().toList();
+
+		assertEquals(List.of(1, 2), overlapping);
+	}
+
+	@Test
+	void overlapAgreesWithSafeAreas() {
+		var center = book(8, 64, 8);
+
+		for (int dx = -5; dx <= 5; dx++) {
+			for (int dy = -5; dy <= 5; dy++) {
+				var other = book(8 + dx, 64 + dy, 8);
+
+				assertEquals(center.safeArea().intersects(other.safeArea()), center.overlaps(other), "offset " + dx + ", " + dy);
+			}
+		}
+	}
+
+	@Test
+	void containmentFollowsActiveAreas() {
+		var index = new Telebooks.BookIndex();
+
+		// Right at a chunk border, the active area reaches into the next chunk
+		var book = book(15, 64, 15);
+		index.add(book, 7);
+
+		assertEquals(Optional.of(7), index.findContaining(World.OVERWORLD, new Vec3d(15.5, 65, 15.5)).map(Telebooks.BookIndex.Entry::chainID));
+		assertEquals(Optional.of(7), index.findContaining(World.OVERWORLD, new Vec3d(16.9, 65, 16.9)).map(Telebooks.BookIndex.Entry::chainID));
+		assertEquals(Optional.of(7), index.findContaining(World.OVERWORLD, new Vec3d(14.1, 64.1, 15.5)).map(Telebooks.BookIndex.Entry::chainID));
+
+		assertTrue(index.findContaining(World.OVERWORLD, new Vec3d(17.1, 65, 15.5)).isEmpty());
+		assertTrue(index.findContaining(World.OVERWORLD, new Vec3d(15.5, 68, 15.5)).isEmpty());
+		assertTrue(index.findContaining(World.NETHER, new Vec3d(15.5, 65, 15.5)).isEmpty());
+	}
+
+	@Test
+	void booksAreKeyedWithoutFlavour() {
+		var index = new Telebooks.BookIndex();
+
+		var book = book(100, 64, -100);
+		var named = new Telebooks.BookLocation(book.world(), book.center(), book.forward(), Optional.of("Named"));
+
+		index.add(book, 1);
+		index.add(named, 2);
+
+		assertEquals(2, index.find(book).orElseThrow().chainID());
+		assertEquals(named, index.find(book).orElseThrow().book());
+
+		index.remove(book);
+
+		assertTrue(index.find(named).isEmpty());
+		assertTrue(index.findOverlapping(book).isEmpty());
+	}
+}
@@ -0,0 +1,276 @@
+package com.mentlerd;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.block.Block;
+import net.minecraft.block.Blocks;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.world.World;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookStoreTest {
+	@BeforeAll
+	static void bootstrap() {
+		SharedConstants.createGameVersion();
+		Bootstrap.initialize();
+	}
+
+	@TempDir
+	Path directory;
+
+	static final Telebooks.BookLocation HOME = new Telebooks.BookLocation(World.OVERWORLD, new BlockPos(0, 64, 0), Direction.NORTH, Optional.of("Home"));
+	static final Telebooks.BookLocation MINE = new Telebooks.BookLocation(World.OVERWORLD, new BlockPos(100, 12, -40), Direction.EAST, Optional.empty());
+	static final Telebooks.BookLocation FORTRESS = new Telebooks.BookLocation(World.NETHER, new BlockPos(-8, 70, 3), Direction.WEST, Optional.of("Fortress"));
+
+	static Telebooks.Pattern pattern(Block block) {
+		var builder = new Telebooks.Pattern.Builder();
+		for (int cell = 0; cell < Telebooks.Pattern.CELLS; cell++) {
+			builder.add(cell == 4 ? Blocks.GOLD_BLOCK : block);
+		}
+		return builder.build();
+	}
+
+	static Telebooks.BookStore.Contents contents() {
+		var contents = new Telebooks.BookStore.Contents();
+
+		var stone = new Telebooks.BookChain(0, pattern(Blocks.STONE));
+		contents.addChain(stone);
+		contents.addBook(stone, HOME);
+		contents.addBook(stone, MINE);
+
+		var planks = new Telebooks.BookChain(3, pattern(Blocks.OAK_PLANKS));
+		contents.addChain(planks);
+		contents.addBook(planks, FORTRESS);
+
+		contents.setRoute(new Telebooks.BookStore.RouteEntry(HOME, MINE, 12, 1, 4000L));
+		return contents;
+	}
+
+	// Records are framed the same way the State journals them
+	static class Journal {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		interface Body {
+			void write(DataOutputStream out) throws IOException;
+		}
+
+		Journal record(byte type, Body body) throws IOException {
+			var record = new ByteArrayOutputStream();
+			var out = new DataOutputStream(record);
+
+			out.writeByte(type);
+			body.write(out);
+
+			new DataOutputStream(bytes).writeInt(record.size());
+			record.writeTo(bytes);
+			return this;
+		}
+
+		Journal book(byte type, int chainID, Telebooks.BookLocation book) throws IOException {
+			return record(type, out -> {
+				out.writeInt(chainID);
+				Telebooks.BookStore.writeLocation(out, book);
+			});
+		}
+
+		void appendTo(Path directory) throws IOException {
+			Telebooks.BookStore.appendJournal(directory, bytes.toByteArray());
+		}
+	}
+
+	@Test
+	void snapshotRoundTrip() throws IOException {
+		var written = contents();
+		Telebooks.BookStore.writeSnapshot(directory, written.toSnapshot(7));
+
+		var read = Telebooks.BookStore.read(directory);
+
+		assertEquals(Telebooks.BookStore.FORMAT, read.format);
+		assertEquals(7, read.generation);
+		assertEquals(4, read.nextChainID);
+		assertEquals(0, read.journalRecords);
+
+		assertEquals(written.chains.keySet(), read.chains.keySet());
+		for (var chain : written.chains.values()) {
+			var other = read.chains.get(chain.id());
+
+			assertEquals(chain.pattern(), other.pattern());
+			assertEquals(chain.books(), other.books());
+		}
+
+		assertEquals(List.copyOf(written.routes.values()), List.copyOf(read.routes.values()));
+	}
+
+	@Test
+	void journalReplaysOnSnapshot() throws IOException {
+		Telebooks.BookStore.writeSnapshot(directory, contents().toSnapshot(1));
+
+		var renamed = new Telebooks.BookLocation(MINE.world(), MINE.center(), MINE.forward(), Optional.of("Mine"));
+		var island = new Telebooks.BookLocation(World.END, new BlockPos(50, 60, 50), Direction.SOUTH, Optional.empty());
+
+		new Journal()
+			.book(Telebooks.BookStore.RECORD_UPDATE, 0, renamed)
+			.record(Telebooks.BookStore.RECORD_CHAIN, out -> {
+				out.writeInt(5);
+				for (int cell = 0; cell < Telebooks.Pattern.CELLS; cell++) {
+					out.writeUTF(Registries.BLOCK.getId(Blocks.END_STONE).toString());
+				}
+			})
+			.book(Telebooks.BookStore.RECORD_ADD, 5, island)
+			.book(Telebooks.BookStore.RECORD_REMOVE, 3, FORTRESS)
+			.record(Telebooks.BookStore.RECORD_ROUTE, out -> {
+				Telebooks.BookStore.writeLocation(out, MINE);
+				Telebooks.BookStore.writeLocation(out, HOME);
+				out.writeInt(2);
+				out.writeInt(0);
+				out.writeLong(5000L);
+			})
+			.appendTo(directory);
+
+		var read = Telebooks.BookStore.read(directory);
+
+		assertEquals(5, read.journalRecords);
+		assertEquals(6, read.nextChainID);
+
+		assertEquals(List.of(HOME, renamed), read.chains.get(0).books());
+		assertEquals(List.of(), read.chains.get(3).books());
+		assertEquals(List.of(island), read.chains.get(5).books());
+		assertEquals(Blocks.END_STONE, read.chains.get(5).pattern().block(0));
+
+		assertEquals(2, read.routes.size());
+	}
+
+	@Test
+	void removedBookTakesItsRoutes() throws IOException {
+		Telebooks.BookStore.writeSnapshot(directory, contents().toSnapshot(1));
+
+		new Journal().book(Telebooks.BookStore.RECORD_REMOVE, 0, MINE).appendTo(directory);
+
+		var read = Telebooks.BookStore.read(directory);
+
+		assertEquals(List.of(HOME), read.chains.get(0).books());
+		assertTrue(read.routes.isEmpty());
+	}
+
+	@Test
+	void tornTailIsTruncated() throws IOException {
+		Telebooks.BookStore.writeSnapshot(directory, contents().toSnapshot(1));
+
+		var whole = new Journal().book(Telebooks.BookStore.RECORD_REMOVE, 3, FORTRESS);
+		whole.appendTo(directory);
+
+		// A length prefix promising more than was written before the crash
+		var torn = new ByteArrayOutputStream();
+		var out = new DataOutputStream(torn);
+		out.writeInt(64);
+		out.writeByte(Telebooks.BookStore.RECORD_ADD);
+		out.writeInt(0);
+		Telebooks.BookStore.appendJournal(directory, torn.toByteArray());
+
+		var read = Telebooks.BookStore.read(directory);
+
+		assertEquals(1, read.journalRecords);
+		assertEquals(List.of(), read.chains.get(3).books());
+
+		long expected = Telebooks.BookStore.JOURNAL_HEADER_SIZE + whole.bytes.size();
+		assertEquals(expected, Files.size(Telebooks.BookStore.getJournalFile(directory)));
+
+		// Records appended after the truncation are reachable again
+		new Journal().book(Telebooks.BookStore.RECORD_ADD, 3, FORTRESS).appendTo(directory);
+
+		var reread = Telebooks.BookStore.read(directory);
+
+		assertEquals(2, reread.journalRecords);
+		assertEquals(List.of(FORTRESS), reread.chains.get(3).books());
+	}
+
+	@Test
+	void journalOfAnotherGenerationIsIgnored() throws IOException {
+		Telebooks.BookStore.writeSnapshot(directory, contents().toSnapshot(1));
+
+		var stale = new Journal().book(Telebooks.BookStore.RECORD_REMOVE, 0, HOME);
+		Telebooks.BookStore.writeSnapshot(directory, contents().toSnapshot(2));
+
+		var header = new ByteArrayOutputStream();
+		var out = new DataOutputStream(header);
+		out.writeInt(Telebooks.BookStore.JOURNAL_MAGIC);
+		out.writeInt(Telebooks.BookStore.FORMAT);
+		out.writeLong(1);
+		stale.bytes.writeTo(header);
+
+		Files.write(Telebooks.BookStore.getJournalFile(directory), header.toByteArray());
+
+		var read = Telebooks.BookStore.read(directory);
+
+		assertEquals(0, read.journalRecords);
+		assertEquals(List.of(HOME, MINE), read.chains.get(0).books());
+	}
+
+	@Test
+	void formatOneSnapshotIsRead() throws IOException {
+		Files.createDirectories(directory);
+
+		try (var out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(Telebooks.BookStore.getSnapshotFile(directory))))) {
+			out.writeInt(Telebooks.BookStore.SNAPSHOT_MAGIC);
+			out.writeInt(1);
+			out.writeLong(4);
+			out.writeInt(2);
+
+			out.writeInt(2);
+			out.writeUTF(Registries.BLOCK.getId(Blocks.STONE).toString());
+			out.writeUTF(Registries.BLOCK.getId(Blocks.GOLD_BLOCK).toString());
+
+			out.writeInt(1);
+			out.writeUTF(World.OVERWORLD.getValue().toString());
+
+			out.writeInt(1);
+			out.writeInt(1);
+			for (int cell = 0; cell < Telebooks.Pattern.CELLS; cell++) {
+				out.writeInt(cell == 4 ? 1 : 0);
+			}
+
+			out.writeInt(1);
+			out.writeInt(0);
+			Telebooks.BookStore.writePosition(out, HOME);
+
+			// Format 1 ends here, without a routes section
+		}
+
+		var read = Telebooks.BookStore.read(directory);
+
+		assertEquals(1, read.format);
+		assertEquals(4, read.generation);
+		assertEquals(2, read.nextChainID);
+
+		assertEquals(pattern(Blocks.STONE), read.chains.get(1).pattern());
+		assertEquals(List.of(HOME), read.chains.get(1).books());
+		assertTrue(read.routes.isEmpty());
+	}
+
+	@Test
+	void unknownFormatIsRejected() throws IOException {
+		Files.createDirectories(directory);
+
+		try (var out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(Telebooks.BookStore.getSnapshotFile(directory))))) {
+			out.writeInt(Telebooks.BookStore.SNAPSHOT_MAGIC);
+			out.writeInt(Telebooks.BookStore.FORMAT + 1);
+		}
+
+		assertThrows(IOException.class, () -> Telebooks.BookStore.read(directory));
+	}
+}
@@ -0,0 +1,101 @@
+package com.mentlerd;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.registry.Registries;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PatternTest {
+	@BeforeAll
+	static void bootstrap() {
+		SharedConstants.createGameVersion();
+		Bootstrap.initialize();
+	}
+
+	static Telebooks.Pattern pattern(List<Block> blocks) {
+		var builder = new Telebooks.Pattern.Builder();
+		blocks.forEach(builder::add);
+		return builder.build();
+	}
+
+	static final List<Block> CELLS = List.of(
+		Blocks.STONE, Blocks.GOLD_BLOCK, Blocks.DIAMOND_BLOCK,
+		Blocks.OAK_PLANKS, Blocks.AIR, Blocks.LAPIS_BLOCK,
+		Blocks.EMERALD_BLOCK, Blocks.REDSTONE_BLOCK, Blocks.IRON_BLOCK
+	);
+
+	@Test
+	void cellsSurvivePacking() {
+		var pattern = pattern(CELLS);
+
+		for (int cell = 0; cell < Telebooks.Pattern.CELLS; cell++) {
+			assertEquals(CELLS.get(cell), pattern.block(cell), "cell " + cell);
+			assertEquals(Registries.BLOCK.getRawId(CELLS.get(cell)), pattern.rawID(cell), "cell " + cell);
+		}
+	}
+
+	// Every block has to fit its cell, or it would bleed into the next one
+	@Test
+	void highestRawIDFitsItsCell() {
+		var last = Registries.BLOCK.get(Registries.BLOCK.size() - 1);
+
+		var blocks = new ArrayList<>(CELLS);
+		blocks.set(1, last);
+		blocks.set(2, last);
+
+		var pattern = pattern(blocks);
+
+		assertEquals(Blocks.STONE, pattern.block(0));
+		assertEquals(last, pattern.block(1));
+		assertEquals(last, pattern.block(2));
+		assertEquals(Blocks.OAK_PLANKS, pattern.block(3));
+	}
+
+	@Test
+	void equalPatternsShareTheirKey() {
+		var pattern = pattern(CELLS);
+		var same = pattern(CELLS);
+
+		assertEquals(pattern, same);
+		assertEquals(pattern.hashCode(), same.hashCode());
+
+		// Swapped cells in different words, and within the same word
+		var across = new ArrayList<>(CELLS);
+		across.set(0, CELLS.get(8));
+		across.set(8, CELLS.get(0));
+		assertNotEquals(pattern, pattern(across));
+
+		var within = new ArrayList<>(CELLS);
+		within.set(0, CELLS.get(1));
+		within.set(1, CELLS.get(0));
+		assertNotEquals(pattern, pattern(within));
+	}
+
+	@Test
+	void patternsNeedEveryCell() {
+		var builder = new Telebooks.Pattern.Builder();
+		CELLS.subList(0, 8).forEach(builder::add);
+
+		assertThrows(IllegalStateException.class, builder::build);
+
+		builder.add(Blocks.STONE);
+		assertThrows(IllegalStateException.class, () -> builder.add(Blocks.STONE));
+	}
+
+	@Test
+	void statesOnlyKeepTheBlock() {
+		var pattern = Telebooks.Pattern.of(CELLS.stream().map(Block::getDefaultState).toList());
+
+		assertEquals(pattern(CELLS), pattern);
+		assertEquals(CELLS, pattern.toStates().stream().map(BlockState::getBlock).toList());
+	}
+}
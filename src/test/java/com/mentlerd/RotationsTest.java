@@ -0,0 +1,63 @@
+package com.mentlerd;
+
+import net.minecraft.util.BlockRotation;
+import net.minecraft.util.math.Direction;
+import net.minecraft.util.math.Vec3d;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RotationsTest {
+	static final Vec3d OFFSET = new Vec3d(1.5, 2, -0.25);
+
+	@Test
+	void offsetsTurnLikeBlocks() {
+		// Block rotations turn east into south when rotating clockwise
+		for (var rotation : BlockRotation.values()) {
+			var expected = rotation.rotate(Direction.EAST);
+			var rotated = Telebooks.Rotations.rotateOffset(new Vec3d(1, 0, 0), rotation);
+
+			assertEquals(expected.getOffsetX(), rotated.getX(), 1e-9, rotation.name());
+			assertEquals(expected.getOffsetZ(), rotated.getZ(), 1e-9, rotation.name());
+		}
+	}
+
+	@Test
+	void rotationsComposeBackToNone() {
+		for (var rotation : BlockRotation.values()) {
+			var inverse = switch (rotation) {
+				case NONE -> BlockRotation.NONE;
+				case CLOCKWISE_90 -> BlockRotation.COUNTERCLOCKWISE_90;
+				case CLOCKWISE_180 -> BlockRotation.CLOCKWISE_180;
+				case COUNTERCLOCKWISE_90 -> BlockRotation.CLOCKWISE_90;
+			};
+
+			var roundTrip = Telebooks.Rotations.rotateOffset(Telebooks.Rotations.rotateOffset(OFFSET, rotation), inverse);
+			assertEquals(OFFSET, roundTrip, rotation.name());
+
+			float yaw = Telebooks.Rotations.rotateYaw(Telebooks.Rotations.rotateYaw(30.0F, rotation), inverse);
+			assertEquals(0.0F, (yaw - 30.0F) % 360.0F, 1e-4F, rotation.name());
+		}
+	}
+
+	@Test
+	void offsetsKeepTheirHeight() {
+		for (var rotation : BlockRotation.values()) {
+			assertEquals(OFFSET.getY(), Telebooks.Rotations.rotateOffset(OFFSET, rotation).getY(), rotation.name());
+		}
+	}
+
+	// Yaw turns the same way as offsets: a quarter turn clockwise adds 90 degrees
+	@Test
+	void yawFollowsOffsets() {
+		for (var rotation : BlockRotation.values()) {
+			// Facing east is a yaw of -90, the look vector of a yaw points at -sin, cos
+			float yaw = Telebooks.Rotations.rotateYaw(-90.0F, rotation);
+			var look = new Vec3d(-Math.sin(Math.toRadians(yaw)), 0, Math.cos(Math.toRadians(yaw)));
+			var rotated = Telebooks.Rotations.rotateOffset(new Vec3d(1, 0, 0), rotation);
+
+			assertEquals(rotated.getX(), look.getX(), 1e-6, rotation.name());
+			assertEquals(rotated.getZ(), look.getZ(), 1e-6, rotation.name());
+		}
+	}
+}